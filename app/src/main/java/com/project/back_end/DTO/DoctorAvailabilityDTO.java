@@ -0,0 +1,28 @@
+package com.project.back_end.DTO;
+
+import java.util.List;
+
+public class DoctorAvailabilityDTO {
+    private final Long doctorId;
+    private final String name;
+    private final String specialty;
+    private final List<String> availableTimes;
+    public DoctorAvailabilityDTO(Long doctorId, String name, String specialty, List<String> availableTimes) {
+        this.doctorId = doctorId;
+        this.name = name;
+        this.specialty = specialty;
+        this.availableTimes = availableTimes;
+    }
+    public Long getDoctorId() {
+        return doctorId;
+    }
+    public String getName() {
+        return name;
+    }
+    public String getSpecialty() {
+        return specialty;
+    }
+    public List<String> getAvailableTimes() {
+        return availableTimes;
+    }
+}
@@ -0,0 +1,23 @@
+package com.project.back_end.DTO;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated doctor listing, of {@code Doctor} entities or {@code DoctorDTO}
+ * summaries. {@code nextCursor} is the id to pass as {@code after} for the next page, or null on
+ * the last page.
+ */
+public class DoctorPage<T> {
+    private final List<T> doctors;
+    private final Long nextCursor;
+    public DoctorPage(List<T> doctors, Long nextCursor) {
+        this.doctors = doctors;
+        this.nextCursor = nextCursor;
+    }
+    public List<T> getDoctors() {
+        return doctors;
+    }
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,53 @@
+package com.project.back_end.DTO;
+
+import java.util.Date;
+
+/**
+ * Identity carried by a signed JWT: the role it was issued for, the id of the
+ * admin/doctor/patient row and the subject (email, or username for admins).
+ * Tokens issued before role/id claims existed resolve with a null role and id.
+ */
+public class TokenPrincipal {
+    private final String role;
+    private final Long id;
+    private final String email;
+    private final Date issuedAt;
+    private final Date expiresAt;
+
+    public TokenPrincipal(String role, Long id, String email, Date issuedAt, Date expiresAt) {
+        this.role = role;
+        this.id = id;
+        this.email = email;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Date getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    // True when the token carries signed role and id claims and can be trusted without a lookup
+    public boolean hasClaims() {
+        return role != null && id != null;
+    }
+
+    public boolean hasRole(String requiredRole) {
+        return role != null && role.equalsIgnoreCase(requiredRole);
+    }
+}
@@ -0,0 +1,80 @@
+package com.project.back_end.config;
+
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.TokenPrincipal;
+import com.project.back_end.services.TokenService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Authenticates every handler annotated with {@link RequiresRole} exactly once per request
+ * and stores the resolved {@link TokenPrincipal} for {@link TokenPrincipalArgumentResolver}.
+ */
+@Component
+public class AuthenticationInterceptor implements HandlerInterceptor {
+
+    public static final String PRINCIPAL_ATTRIBUTE = AuthenticationInterceptor.class.getName() + ".principal";
+
+    private final TokenService tokenService;
+    private final ObjectMapper objectMapper;
+
+    public AuthenticationInterceptor(TokenService tokenService, ObjectMapper objectMapper) {
+        this.tokenService = tokenService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        RequiresRole requiresRole = handlerMethod.getMethodAnnotation(RequiresRole.class);
+        if (requiresRole == null) {
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> pathVariables = (Map<String, String>) request
+                .getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String token = pathVariables != null && pathVariables.containsKey("token")
+                ? pathVariables.get("token")
+                : request.getParameter("token");
+        String role = requiresRole.value().isEmpty() && pathVariables != null
+                ? pathVariables.get(requiresRole.fromPath())
+                : requiresRole.value();
+
+        TokenPrincipal principal;
+        try {
+            principal = tokenService.authenticate(token, role);
+        } catch (Exception e) {
+            System.err.println("Token validation error: " + e.getMessage());
+            writeError(response, HttpStatus.INTERNAL_SERVER_ERROR, "Token validation failed.");
+            return false;
+        }
+        if (principal == null) {
+            writeError(response, HttpStatus.UNAUTHORIZED, "Invalid or expired token.");
+            return false;
+        }
+
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+        return true;
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws Exception {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("status", "error", "message", message));
+    }
+}
@@ -0,0 +1,52 @@
+package com.project.back_end.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.project.back_end.services.AvailabilityRegistry;
+import com.project.back_end.services.BookingCalendar;
+import com.project.back_end.services.DaySheetCache;
+import com.project.back_end.services.PrincipalCache;
+import com.project.back_end.services.TokenService;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Application meters on top of the ones Spring Boot binds by itself (templated
+ * {@code http.server.requests} per controller route, Hikari and MongoDB pools, JVM and GC):
+ * {@value #SERVICE_TIMER} for the services annotated with {@code @Timed}, and the size, hit and
+ * miss counts of the in-process Caffeine caches. Everything is scraped from
+ * {@code /actuator/prometheus}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "service.calls";
+
+    public static final String VERIFIED_TOKENS = "tokens.verified";
+    public static final String BOOKED_SLOTS = "booking.calendar";
+    public static final String DAY_SHEETS = "day.sheets";
+    public static final String DOCTOR_AVAILABILITY = "doctor.availability";
+
+    // Times every public method of a class annotated with @Timed, tagged with its class and method
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    // Every cache is built with recordStats(), so the binder reports its hit rate
+    @Bean
+    public MeterBinder cacheMetrics(PrincipalCache principalCache, TokenService tokenService,
+            BookingCalendar bookingCalendar, DaySheetCache daySheetCache, AvailabilityRegistry availabilityRegistry) {
+        return registry -> {
+            principalCache.caches().forEach((name, cache) -> CaffeineCacheMetrics.monitor(registry, cache, name));
+            CaffeineCacheMetrics.monitor(registry, tokenService.cache(), VERIFIED_TOKENS);
+            CaffeineCacheMetrics.monitor(registry, bookingCalendar.cache(), BOOKED_SLOTS);
+            CaffeineCacheMetrics.monitor(registry, daySheetCache.cache(), DAY_SHEETS);
+            CaffeineCacheMetrics.monitor(registry, availabilityRegistry.cache(), DOCTOR_AVAILABILITY);
+        };
+    }
+}
@@ -0,0 +1,161 @@
+package com.project.back_end.config;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Instruments every Spring Data repository (JPA and MongoDB) with the rows each method returns
+ * ({@value #ROWS_METRIC}) and a slow-query log: a call slower than
+ * {@code repository-metrics.slow-query-threshold} is counted in {@value #SLOW_METRIC} and
+ * logged with its query shape (the declared JPQL or Mongo query, or the derived method and its
+ * parameter types, never the argument values), failed calls included. Latency comes from Spring
+ * Boot's own {@code spring.data.repository.invocations} timer, published as a histogram.
+ * <p>
+ * Rows are not counted for {@code Stream} results, which are consumed after the call returns,
+ * nor for failed calls.
+ */
+@Component
+public class RepositoryMetrics implements BeanPostProcessor {
+
+    public static final String ROWS_METRIC = "repository.rows";
+    public static final String SLOW_METRIC = "repository.slow";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final long slowNanos;
+    private final Map<Method, String> shapes = new ConcurrentHashMap<>();
+
+    public RepositoryMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${repository-metrics.slow-query-threshold:PT0.2S}") Duration slowQueryThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowNanos = slowQueryThreshold.toNanos();
+    }
+
+    // Adds the interceptor to each repository proxy before the factory bean creates it
+    @Override
+    public Object postProcessBeforeInitialization(@NonNull Object bean, @NonNull String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, information) -> proxyFactory.addAdvice(
+                            new Interceptor(information.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    private final class Interceptor implements MethodInterceptor {
+        private final String repository;
+
+        Interceptor(String repository) {
+            this.repository = repository;
+        }
+
+        // Recorded in finally so a call that fails after running slowly is still counted and logged
+        @Override
+        public Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+            long start = System.nanoTime();
+            Object result = null;
+            boolean failed = true;
+            try {
+                result = invocation.proceed();
+                failed = false;
+                return result;
+            } finally {
+                record(invocation.getMethod(), result, failed, System.nanoTime() - start);
+            }
+        }
+
+        private void record(Method method, Object result, boolean failed, long elapsed) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry == null) {
+                return;
+            }
+            long rows = failed ? -1 : rows(result, method);
+            if (rows >= 0) {
+                DistributionSummary.builder(ROWS_METRIC)
+                        .description("Rows returned per repository method call")
+                        .tag("repository", repository)
+                        .tag("method", method.getName())
+                        .publishPercentileHistogram()
+                        .register(registry)
+                        .record(rows);
+            }
+            if (elapsed > slowNanos) {
+                Counter.builder(SLOW_METRIC)
+                        .description("Repository method calls slower than the slow-query threshold")
+                        .tag("repository", repository)
+                        .tag("method", method.getName())
+                        .register(registry)
+                        .increment();
+                System.err.println("Slow query: " + repository + "." + method.getName() + (failed ? " failed after " : " took ")
+                        + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms"
+                        + (rows >= 0 ? " for " + rows + " rows" : "") + ": " + shape(method));
+            }
+        }
+    }
+
+    // rows: the number of rows in a result, or -1 when it cannot be told without consuming it (streams, void)
+    private static long rows(Object result, Method method) {
+        if (method.getReturnType() == void.class || result instanceof Stream) {
+            return -1;
+        }
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return 1;
+    }
+
+    // shape: the declared JPQL or Mongo query of the method, or the derived query method with its parameter types
+    private String shape(Method method) {
+        return shapes.computeIfAbsent(method, m -> {
+            String parameters = Arrays.stream(m.getParameterTypes())
+                    .map(Class::getSimpleName)
+                    .collect(Collectors.joining(", ", "(", ")"));
+            String query = declaredQuery(m);
+            if (!query.isEmpty()) {
+                return query.replaceAll("\\s+", " ").trim() + " " + parameters;
+            }
+            return "derived " + m.getName() + parameters;
+        });
+    }
+
+    private static String declaredQuery(Method method) {
+        Query jpa = method.getAnnotation(Query.class);
+        if (jpa != null) {
+            return jpa.value();
+        }
+        org.springframework.data.mongodb.repository.Query mongo =
+                method.getAnnotation(org.springframework.data.mongodb.repository.Query.class);
+        return mongo != null ? mongo.value() : "";
+    }
+}
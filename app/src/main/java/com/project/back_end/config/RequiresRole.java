@@ -0,0 +1,20 @@
+package com.project.back_end.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler method whose {@code token} (path variable or request parameter)
+ * must be valid for a role. The role is either fixed through {@link #value()} or read
+ * from the path variable named by {@link #fromPath()}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequiresRole {
+
+    String value() default "";
+
+    String fromPath() default "";
+}
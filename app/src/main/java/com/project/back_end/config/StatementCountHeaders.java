@@ -0,0 +1,38 @@
+package com.project.back_end.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the {@link StatementCounter} counts of the request as response headers just before a
+ * response body is written, while the headers can still be set.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "query-count.enabled", havingValue = "true")
+public class StatementCountHeaders implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(@NonNull MethodParameter returnType,
+            @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, @NonNull MethodParameter returnType, @NonNull MediaType contentType,
+            @NonNull Class<? extends HttpMessageConverter<?>> converterType,
+            @NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response) {
+        StatementCounter.Counts counts = StatementCounter.current();
+        if (counts != null) {
+            response.getHeaders().set(StatementCounter.SQL_HEADER, Integer.toString(counts.getSql()));
+            response.getHeaders().set(StatementCounter.MONGO_HEADER, Integer.toString(counts.getMongo()));
+        }
+        return body;
+    }
+}
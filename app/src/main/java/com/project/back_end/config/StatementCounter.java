@@ -0,0 +1,180 @@
+package com.project.back_end.config;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Counts the SQL statements (through a Hibernate {@link StatementInspector}) and MongoDB
+ * commands (through a driver {@link CommandListener}) issued while the thread serves an HTTP
+ * request. Each request records both counts in the {@value #METRIC} summary, and
+ * {@link StatementCountHeaders} returns them as response headers. A statement shape (the SQL
+ * with literals and IN lists folded) issued more than {@code query-count.repeat-threshold}
+ * times in one request is logged as a likely N+1.
+ * <p>
+ * Registered only with {@code query-count.enabled=true} (the dev profile and the tests).
+ * Statements run outside the request thread, such as streamed responses and listeners
+ * after commit, are not counted.
+ */
+@Component
+@ConditionalOnProperty(name = "query-count.enabled", havingValue = "true")
+public class StatementCounter extends OncePerRequestFilter
+        implements StatementInspector, CommandListener, HibernatePropertiesCustomizer, MongoClientSettingsBuilderCustomizer {
+
+    public static final String METRIC = "http.server.requests.statements";
+    public static final String SQL_HEADER = "X-SQL-Statements";
+    public static final String MONGO_HEADER = "X-Mongo-Commands";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final int repeatThreshold;
+
+    public StatementCounter(MeterRegistry meterRegistry,
+            @Value("${query-count.repeat-threshold:5}") int repeatThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    // Statements and commands of the current request so far
+    public static final class Counts {
+        private int sql;
+        private int mongo;
+        private final Map<String, Integer> shapes = new HashMap<>();
+
+        public int getSql() {
+            return sql;
+        }
+
+        public int getMongo() {
+            return mongo;
+        }
+
+        // Statement shapes issued so far, with how many times each ran
+        public Map<String, Integer> getShapes() {
+            return Collections.unmodifiableMap(shapes);
+        }
+    }
+
+    // current: the counts of the request served by this thread, or null outside a counted request
+    public static Counts current() {
+        return CURRENT.get();
+    }
+
+    // track: counts the statements and commands work issues on this thread, outside of any request (tests, runners)
+    public static Counts track(Runnable work) {
+        Counts outer = CURRENT.get();
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        try {
+            work.run();
+        } finally {
+            if (outer != null) {
+                CURRENT.set(outer);
+            } else {
+                CURRENT.remove();
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull FilterChain chain) throws ServletException, IOException {
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            CURRENT.remove();
+            record(request, counts);
+        }
+    }
+
+    private void record(HttpServletRequest request, Counts counts) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        summary("sql", uri).record(counts.sql);
+        summary("mongo", uri).record(counts.mongo);
+        counts.shapes.forEach((shape, times) -> {
+            if (times > repeatThreshold) {
+                System.err.println("Possible N+1: " + request.getMethod() + " " + uri + " ran " + times
+                        + " times: " + shape);
+            }
+        });
+    }
+
+    private DistributionSummary summary(String kind, String uri) {
+        return DistributionSummary.builder(METRIC)
+                .description("Statements issued per HTTP request")
+                .tag("kind", kind)
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+
+    // Hibernate calls this before preparing every statement; the SQL is returned unchanged
+    @Override
+    public String inspect(String sql) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.sql++;
+            counts.shapes.merge(shape(sql), 1, Integer::sum);
+        }
+        return sql;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        Counts counts = CURRENT.get();
+        if (counts != null) {
+            counts.mongo++;
+        }
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public void customize(MongoClientSettings.Builder settings) {
+        settings.addCommandListener(this);
+    }
+
+    // shape: the statement with literals replaced by ? and IN lists folded, so repeats with other arguments compare equal
+    static String shape(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,32 @@
+package com.project.back_end.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import com.project.back_end.DTO.TokenPrincipal;
+
+/**
+ * Injects the {@link TokenPrincipal} resolved by {@link AuthenticationInterceptor}
+ * into handler methods that declare it as a parameter.
+ */
+@Component
+public class TokenPrincipalArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(@NonNull MethodParameter parameter) {
+        return TokenPrincipal.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(@NonNull MethodParameter parameter, ModelAndViewContainer mavContainer,
+            @NonNull NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        return webRequest.getAttribute(AuthenticationInterceptor.PRINCIPAL_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+    }
+}
@@ -1,21 +1,46 @@
 package com.project.back_end.config;
 
 
+import java.util.List;
+
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull; 
 
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final AuthenticationInterceptor authenticationInterceptor;
+    private final TokenPrincipalArgumentResolver tokenPrincipalArgumentResolver;
+
+    public WebConfig(AuthenticationInterceptor authenticationInterceptor,
+            TokenPrincipalArgumentResolver tokenPrincipalArgumentResolver) {
+        this.authenticationInterceptor = authenticationInterceptor;
+        this.tokenPrincipalArgumentResolver = tokenPrincipalArgumentResolver;
+    }
+
     @Override
     public void addCorsMappings(@NonNull CorsRegistry registry) {
         // Allow CORS for all endpoints
         registry.addMapping("/**")
                 .allowedOrigins("*")  // Add your frontend URL here
                 .allowedMethods("GET", "POST", "PUT", "DELETE")  // Specify allowed methods
-                .allowedHeaders("*");  // You can restrict headers if needed
+                .allowedHeaders("*")  // You can restrict headers if needed
+                .exposedHeaders(StatementCounter.SQL_HEADER, StatementCounter.MONGO_HEADER);  // Dev-profile statement counts
+    }
+
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        // Only handlers annotated with @RequiresRole are checked
+        registry.addInterceptor(authenticationInterceptor);
+    }
+
+    @Override
+    public void addArgumentResolvers(@NonNull List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(tokenPrincipalArgumentResolver);
     }
 }
@@ -1,10 +1,10 @@
 package com.project.back_end.controllers;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,11 +16,15 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.TokenPrincipal;
+import com.project.back_end.config.RequiresRole;
 import com.project.back_end.models.Appointment;
 import com.project.back_end.services.AppointmentService;
-import com.project.back_end.services.MainService;
+import com.project.back_end.services.ResourceVersions;
+import com.project.back_end.services.SlotHolds;
 
 @RestController
 @RequestMapping("/appointments")
@@ -28,81 +32,68 @@ public class AppointmentController {
 
 // 2. Autowire Dependencies:
     private final AppointmentService appointmentService;
-    private final MainService tokenService; // General service for shared utilities like token validation
+    private final ResourceVersions versions;
 
-    public AppointmentController(AppointmentService appointmentService, MainService tokenService) {
+    public AppointmentController(AppointmentService appointmentService, ResourceVersions versions) {
         this.appointmentService = appointmentService;
-        this.tokenService = tokenService;
-    }
-
-    /**
-     * Helper method to validate the token and return an error response map if invalid.
-     * @param token The security token.
-     * @param requiredRole The role needed for authorization (e.g., "doctor", "patient").
-     * @return ResponseEntity with an error map if invalid, or null if the token is valid (HTTP 200 OK).
-     */
-    private ResponseEntity<Map<String, Object>> checkTokenValidity(String token, String requiredRole) {
-        ResponseEntity<String> validationResponse = tokenService.validateToken(token, requiredRole);
-        
-        if (validationResponse.getStatusCode() != HttpStatus.OK) {
-            // Token is invalid/expired/validation failed.
-            Map<String, Object> errorBody = new HashMap<>();
-            errorBody.put("status", "error");
-            // Use the error message returned in the body of the ResponseEntity from the service
-            errorBody.put("message", validationResponse.getBody()); 
-            
-            // Return the original error status code (e.g., 401 UNAUTHORIZED)
-            return new ResponseEntity<>(errorBody, validationResponse.getStatusCode());
-        }
-        return null; // Token is valid
+        this.versions = versions;
     }
 
     // 3. Define the `getAppointments` Method:
     // Mapped to include doctor ID and date, required by the service method signature.
     @GetMapping("/doctor/{doctorId}/{date}/{patientName}/{token}")
+    @RequiresRole("doctor") // Token is validated once by the AuthenticationInterceptor
     public ResponseEntity<?> getAppointments(
             @PathVariable Long doctorId, // Doctor ID now explicitly taken from path
             @PathVariable LocalDate date, // Requires conversion from String to LocalDate
             @PathVariable(required = false) String patientName,
-            @PathVariable String token) {
+            TokenPrincipal principal,
+            WebRequest request) {
+
+        // A doctor reads their own day sheet only: the doctor ID in the path must be the token's
+        if (!doctorId.equals(principal.getId())) {
+            return new ResponseEntity<>(
+                    Map.of("status", "error", "message", "Unauthorized: Doctor ID mismatch."),
+                    HttpStatus.FORBIDDEN); // 403 Forbidden
+        }
 
-        // Validate the token for the "doctor" role
-        ResponseEntity<Map<String, Object>> authError = checkTokenValidity(token, "doctor");
-        if (authError != null) {
-            return authError;
+        // The dashboard polls this: an unchanged day sheet is answered with 304 Not Modified from memory
+        if (request.checkNotModified(versions.daySheetETag(doctorId, date))) {
+            return null;
         }
-        
-        // Ensure the doctor ID in the path matches the ID in the token (best practice check)
-        // Note: For this exercise, we skip token ID extraction and trust the path variable, 
-        // but in production, tokenService.extractIdFromToken(token) should be used.
-
-        // Token is valid, proceed with business logic (service returns List<Appointment>)
-        List<Appointment> appointments = appointmentService.getAppointments(doctorId, date, patientName);
-        List<AppointmentDTO> appsDto = appointments.stream()
-        .map(AppointmentDTO::new) // 1. Convert each Appointment to a new AppointmentDTO object
-        .collect(Collectors.toList()); // 2. Collect the results back into a new List
+
+        // Token is valid, proceed with business logic (service returns the day's List<AppointmentDTO>)
+        List<AppointmentDTO> appointments = appointmentService.getAppointments(doctorId, date, patientName);
         if (appointments.isEmpty()) {
             return new ResponseEntity<>("No appointments found.", HttpStatus.NOT_FOUND);
         }
         
         // Return the list of appointments with HTTP 200 OK
-        return ResponseEntity.ok(appsDto);
+        return ResponseEntity.ok(appointments);
     }
 
     // 4. Define the `bookAppointment` Method:
     @PostMapping("/{token}")
+    @RequiresRole("patient")
     public ResponseEntity<Map<String, Object>> bookAppointment(
             @RequestBody Appointment appointment,
-            @PathVariable String token) {
+            TokenPrincipal principal) {
 
-        // Validate the token for the "patient" role
-        ResponseEntity<Map<String, Object>> authError = checkTokenValidity(token, "patient");
-        if (authError != null) {
-            return authError;
+        // A patient books for themselves only: the hold check and the hold used up belong to the token's patient
+        if (appointment.getPatient() == null || !principal.getId().equals(appointment.getPatient().getId())) {
+            return new ResponseEntity<>(
+                    Map.of("status", "error", "message", "Unauthorized: Patient ID mismatch."),
+                    HttpStatus.FORBIDDEN); // 403 Forbidden
         }
 
-        // Token is valid, proceed with business logic (service returns int: 1 for success, 0 for failure)
-        int successCode = appointmentService.bookAppointment(appointment);
+        // Token is valid, proceed with business logic (service returns int: 1 for success, -1 if the slot is taken, 0 for failure)
+        int successCode = appointmentService.bookAppointment(appointment, principal.getId());
+
+        if (successCode == -1) {
+            return new ResponseEntity<>(
+                    Map.of("status", "error", "message", AppointmentService.SLOT_TAKEN),
+                    HttpStatus.CONFLICT); // 409 Conflict
+        }
 
         if (successCode == 1) {
             Map<String, Object> successBody = new HashMap<>();
@@ -119,30 +110,57 @@ public class AppointmentController {
         }
     }
 
+    // Define the `holdSlot` Method:
+    // Holds the requested doctor and time for the calling patient while they complete the booking
+    @PostMapping("/hold/{token}")
+    @RequiresRole("patient")
+    public ResponseEntity<Map<String, Object>> holdSlot(
+            @RequestBody Appointment appointment,
+            TokenPrincipal principal) {
+
+        Long doctorId = appointment.getDoctor() != null ? appointment.getDoctor().getId() : null;
+        SlotHolds.Hold hold = appointmentService.holdSlot(principal.getId(), doctorId, appointment.getAppointmentTime());
+
+        if (hold == null) {
+            return new ResponseEntity<>(
+                    Map.of("status", "error", "message", "Slot is not available."),
+                    HttpStatus.CONFLICT); // 409 Conflict
+        }
+
+        Map<String, Object> responseBody = new HashMap<>();
+        responseBody.put("status", "success");
+        responseBody.put("holdId", hold.holdId());
+        responseBody.put("slotStart", hold.slotStart());
+        responseBody.put("expiresAt", Instant.ofEpochMilli(hold.expiresAtMillis()));
+        return new ResponseEntity<>(responseBody, HttpStatus.CREATED); // 201 Created
+    }
+
+    // Define the `releaseHold` Method:
+    @DeleteMapping("/hold/{holdId}/{token}")
+    @RequiresRole("patient")
+    public ResponseEntity<Map<String, Object>> releaseHold(
+            @PathVariable String holdId,
+            TokenPrincipal principal) {
+
+        if (!appointmentService.releaseHold(holdId, principal.getId())) {
+            return new ResponseEntity<>(
+                    Map.of("status", "error", "message", "Hold not found or expired."),
+                    HttpStatus.NOT_FOUND); // 404 Not Found
+        }
+        return ResponseEntity.ok(Map.of("status", "success", "message", "Hold released."));
+    }
+
     // 5. Define the `updateAppointment` Method:
     @PutMapping("/{id}/{token}") // Requires appointment ID in the path
+    @RequiresRole("patient")
     public ResponseEntity<Map<String, Object>> updateAppointment(
             @PathVariable Long id,
             @RequestBody Appointment updatedAppointment,
-            @PathVariable String token) {
-
-        // Validate the token for the "patient" role
-        ResponseEntity<Map<String, Object>> authError = checkTokenValidity(token, "patient");
-        if (authError != null) {
-            return authError;
-        }
-
-        // Assume tokenService can extract the patientId from the token
-        Long patientId;
-        try {
-            // This method needs to be implemented in your general Service class
-            patientId = tokenService.extractIdFromToken(token); 
-        } catch (Exception e) {
-            return new ResponseEntity<>(Map.of("status", "error", "message", "Invalid token structure."), HttpStatus.UNAUTHORIZED);
-        }
+            TokenPrincipal principal) {
 
         // Token is valid, proceed with business logic (service returns status message String)
-        String serviceMessage = appointmentService.updateAppointment(id, updatedAppointment, patientId);
+        // The patient ID comes from the principal resolved while authenticating the token
+        String serviceMessage = appointmentService.updateAppointment(id, updatedAppointment, principal.getId());
         
         Map<String, Object> responseBody = new HashMap<>();
 
@@ -159,6 +177,10 @@ public class AppointmentController {
             responseBody.put("status", "error");
             responseBody.put("message", serviceMessage);
             return new ResponseEntity<>(responseBody, HttpStatus.NOT_FOUND); // 404 Not Found
+        } else if (serviceMessage.equals(AppointmentService.SLOT_TAKEN)) {
+            responseBody.put("status", "error");
+            responseBody.put("message", serviceMessage);
+            return new ResponseEntity<>(responseBody, HttpStatus.CONFLICT); // 409 Conflict
         } else {
             // Default error for availability or other business logic failure
             responseBody.put("status", "error");
@@ -169,27 +191,13 @@ public class AppointmentController {
 
     // 6. Define the `cancelAppointment` Method:
     @DeleteMapping("/{id}/{token}")
+    @RequiresRole("patient")
     public ResponseEntity<Map<String, Object>> cancelAppointment(
             @PathVariable Long id, // Appointment ID
-            @PathVariable String token) {
-
-        // Validate the token for the "patient" role
-        ResponseEntity<Map<String, Object>> authError = checkTokenValidity(token, "patient");
-        if (authError != null) {
-            return authError;
-        }
-
-        // Assume tokenService can extract the patientId from the token
-        Long patientId;
-        try {
-            // This method needs to be implemented in your general Service class
-            patientId = tokenService.extractIdFromToken(token);
-        } catch (Exception e) {
-            return new ResponseEntity<>(Map.of("status", "error", "message", "Invalid token structure."), HttpStatus.UNAUTHORIZED);
-        }
+            TokenPrincipal principal) {
 
         // Token is valid, proceed with business logic (service returns status message String)
-        String serviceMessage = appointmentService.cancelAppointment(id, patientId);
+        String serviceMessage = appointmentService.cancelAppointment(id, principal.getId());
         
         Map<String, Object> responseBody = new HashMap<>();
 
@@ -221,7 +229,8 @@ public class AppointmentController {
 
 // 2. Autowire Dependencies:
 //    - Inject `AppointmentService` for handling the business logic specific to appointments.
-//    - Inject the general `Service` class, which provides shared functionality like token validation and appointment checks.
+//    - Token validation is declared with `@RequiresRole` and performed once per request by the `AuthenticationInterceptor`,
+//      which also resolves the caller's `TokenPrincipal` (role, id, email) for handlers that need it.
 
 
 // 3. Define the `getAppointments` Method:
@@ -230,14 +239,22 @@ public class AppointmentController {
 //    - First validates the token for role `"doctor"` using the `Service`.
 //    - If the token is valid, returns appointments for the given patient on the specified date.
 //    - If the token is invalid or expired, responds with the appropriate message and status code.
+//    - A doctor ID in the path other than the token's is rejected with 403 Forbidden.
+//    - Carries an ETag of the doctor's day; a poll whose `If-None-Match` still matches gets 304 Not Modified from memory.
 
 
 // 4. Define the `bookAppointment` Method:
 //    - Handles HTTP POST requests to create a new appointment.
 //    - Accepts a validated `Appointment` object in the request body and a token as a path variable.
-//    - Validates the token for the `"patient"` role.
+//    - Validates the token for the `"patient"` role; a body whose patient is not the token's patient gets `403 Forbidden`.
 //    - Uses service logic to validate the appointment data (e.g., check for doctor availability and time conflicts).
-//    - Returns success if booked, or appropriate error messages if the doctor ID is invalid or the slot is already taken.
+//    - Returns success if booked, `409 Conflict` if the slot is already taken, or an error message if the doctor ID is invalid.
+
+
+// Hold endpoints (`POST /appointments/hold/{token}`, `DELETE /appointments/hold/{holdId}/{token}`):
+//    - A patient can hold a free slot for a short time while completing checkout; the held slot disappears from availability
+//      for everyone else and is used up when the same patient books it through `bookAppointment`.
+//    - A slot that is not offered, already booked or held by another patient returns `409 Conflict`.
 
 
 // 5. Define the `updateAppointment` Method:
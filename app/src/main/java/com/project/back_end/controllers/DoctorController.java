@@ -1,7 +1,12 @@
 package com.project.back_end.controllers;
 
+import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -18,59 +23,53 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.DoctorAvailabilityDTO;
 import com.project.back_end.DTO.DoctorDTO;
+import com.project.back_end.DTO.DoctorPage;
 import com.project.back_end.DTO.Login;
+import com.project.back_end.DTO.TokenPrincipal;
+import com.project.back_end.config.RequiresRole;
 import com.project.back_end.models.Doctor;
 import com.project.back_end.services.DoctorService;
 import com.project.back_end.services.MainService;
+import com.project.back_end.services.ResourceVersions;
 
 @RestController
 @RequestMapping("${api.path}doctor")
 public class DoctorController {
+
+    // Longest span served by the availability range endpoint
+    private static final int MAX_AVAILABILITY_RANGE_DAYS = 31;
     
     DoctorService doctorService;
     MainService service;
+    ResourceVersions versions;
+    ObjectMapper objectMapper;
 
-    public DoctorController(DoctorService doctorService, MainService service) {
+    public DoctorController(DoctorService doctorService, MainService service, ResourceVersions versions,
+            ObjectMapper objectMapper) {
         this.doctorService = doctorService;
         this.service = service;
-    }
-
-    /**
-     * Helper method to validate the token and return an error response map if invalid.
-     * @param token The security token.
-     * @param requiredRole The role needed for authorization (e.g., "doctor", "admin").
-     * @return ResponseEntity with an error map if invalid, or null if the token is valid (HTTP 200 OK).
-     */
-    private ResponseEntity<Map<String, Object>> checkTokenValidity(String token, String requiredRole) {
-        // Uses the general Service method for token validation
-        ResponseEntity<String> validationResponse = service.validateToken(token, requiredRole);
-        
-        if (validationResponse.getStatusCode() != HttpStatus.OK) {
-            Map<String, Object> errorBody = new HashMap<>();
-            errorBody.put("status", "error");
-            errorBody.put("message", validationResponse.getBody()); 
-            
-            // Return the original error status code (e.g., 401 UNAUTHORIZED)
-            return new ResponseEntity<>(errorBody, validationResponse.getStatusCode());
-        }
-        return null; // Token is valid
+        this.versions = versions;
+        this.objectMapper = objectMapper;
     }
 
     // 3. Define the `getDoctorAvailability` Method:
     // Service method: List<String> getDoctorAvailability(Long doctorId, LocalDate date)
     @GetMapping("/availability/{userType}/{doctorId}/{date}/{token}")
+    @RequiresRole(fromPath = "userType")
     public ResponseEntity<?> getDoctorAvailability(
-            @PathVariable String userType,
             @PathVariable Long doctorId,
             @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
-            @PathVariable String token) {
+            WebRequest request) {
 
-        // Validate the token against the user type (e.g., "patient", "doctor", "admin")
-        ResponseEntity<Map<String, Object>> authError = checkTokenValidity(token, userType);
-        if (authError != null) {
-            return authError;
+        // Unchanged since the client's copy: 304 Not Modified without reading anything
+        if (request.checkNotModified(versions.availabilityETag(doctorId, date, date))) {
+            return null;
         }
 
         // doctorService.getDoctorAvailability returns List<String> of available times
@@ -89,32 +88,160 @@ public class DoctorController {
         return ResponseEntity.ok(response);
     }
 
-    // 4. Define the `getDoctor` Method (Retrieves all doctors):
-    // Service method: List<Doctor> getDoctors()
+    // Define the `getDoctorAvailabilityRange` Method:
+    // Service method: Map<LocalDate, List<String>> getDoctorAvailability(Long doctorId, LocalDate start, LocalDate end)
+    @GetMapping("/availability/range/{userType}/{doctorId}/{start}/{end}/{token}")
+    @RequiresRole(fromPath = "userType")
+    public ResponseEntity<?> getDoctorAvailabilityRange(
+            @PathVariable Long doctorId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            WebRequest request) {
+
+        if (end.isBefore(start) || start.plusDays(MAX_AVAILABILITY_RANGE_DAYS).isBefore(end.plusDays(1))) {
+            return new ResponseEntity<>(
+                Map.of("status", "error", "message",
+                        "End date must be on or after start date and span at most " + MAX_AVAILABILITY_RANGE_DAYS + " days."),
+                HttpStatus.BAD_REQUEST
+            );
+        }
+
+        if (request.checkNotModified(versions.availabilityETag(doctorId, start, end))) {
+            return null;
+        }
+
+        Map<LocalDate, List<String>> availability = doctorService.getDoctorAvailability(doctorId, start, end);
+
+        if (availability.isEmpty()) {
+             return new ResponseEntity<>(
+                Map.of("status", "info", "message", "Doctor not found."),
+                HttpStatus.NOT_FOUND
+            );
+        }
+
+        // Keyed by ISO date ("2025-05-01") in date order
+        Map<String, List<String>> availableTimes = new LinkedHashMap<>();
+        availability.forEach((date, times) -> availableTimes.put(date.toString(), times));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("availableTimes", availableTimes);
+        return ResponseEntity.ok(response);
+    }
+
+    // Define the `getSpecialtyAvailability` Method:
+    // Service method: List<DoctorAvailabilityDTO> getSpecialtyAvailability(String specialty, LocalDate date)
+    @GetMapping("/availability/specialty/{userType}/{specialty}/{date}/{token}")
+    @RequiresRole(fromPath = "userType")
+    public ResponseEntity<?> getSpecialtyAvailability(
+            @PathVariable String specialty,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            WebRequest request) {
+
+        if (request.checkNotModified(versions.specialtyAvailabilityETag(date))) {
+            return null;
+        }
+
+        List<DoctorAvailabilityDTO> availability = doctorService.getSpecialtyAvailability(specialty, date);
+
+        if (availability.isEmpty()) {
+             return new ResponseEntity<>(
+                Map.of("status", "info", "message", "No doctors found for this specialty."),
+                HttpStatus.NOT_FOUND
+            );
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("doctors", availability);
+        return ResponseEntity.ok(response);
+    }
+
+    // Define the `getDoctorsFreeAt` Method:
+    // Service method: List<Doctor> findDoctorsFreeAt(LocalDateTime time)
+    @GetMapping(value = "/free", params = "at")
+    public ResponseEntity<Map<String, Object>> getDoctorsFreeAt(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        // Bookings and holds change the answer, so unlike the listings it carries no ETag
+        Map<String, Object> response = new HashMap<>();
+        response.put("doctors", toDTOs(doctorService.findDoctorsFreeAt(at)));
+        return ResponseEntity.ok(response);
+    }
+
+    // Define the `getDoctorsWithSlotBetween` Method:
+    // Service method: List<Doctor> findDoctorsWithSlotBetween(DayOfWeek day, LocalTime from, LocalTime to)
+    @GetMapping(value = "/free", params = { "day", "from", "to" })
+    public ResponseEntity<Map<String, Object>> getDoctorsWithSlotBetween(
+            @RequestParam DayOfWeek day,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime to,
+            WebRequest request) {
+
+        if (Duration.between(from, to).toMinutes() < 60) {
+            return new ResponseEntity<>(
+                Map.of("status", "error", "message", "The range must span at least one hour."),
+                HttpStatus.BAD_REQUEST
+            );
+        }
+
+        if (request.checkNotModified(versions.doctorsETag())) {
+            return null;
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("doctors", toDTOs(doctorService.findDoctorsWithSlotBetween(day, from, to)));
+        return ResponseEntity.ok(response);
+    }
+
+    // 4. Define the `getDoctor` Method (Retrieves all doctors, one page at a time):
+    // Service method: DoctorPage findDoctorPage(String name, String specialty, String period, Long afterId, Integer size)
     @GetMapping("/all")
-    public ResponseEntity<Map<String, Object>> getAllDoctors() {
-        // doctorService.getDoctors() returns List<Doctor>
-        List<Doctor> doctors = doctorService.getDoctors(); // Corrected service call name
+    public ResponseEntity<Map<String, Object>> getAllDoctors(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        if (request.checkNotModified(versions.doctorsETag())) {
+            return null;
+        }
+        DoctorPage<Doctor> page = doctorService.findDoctorPage(null, null, null, after, size);
         
         Map<String, Object> response = new HashMap<>();
-        response.put("doctors", doctors);
+        response.put("doctors", page.getDoctors());
+        response.put("nextCursor", page.getNextCursor());
         
         return ResponseEntity.ok(response);
     }
 
+    // Define the `streamAllDoctors` Method (`?stream=true`):
+    // Every doctor after the cursor, read one full page at a time (each page in its own transaction) and written as it is read
+    @GetMapping(value = "/all", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllDoctors(
+            @RequestParam(required = false) Long after,
+            WebRequest request) {
+        if (request.checkNotModified(versions.doctorsETag())) {
+            return null;
+        }
+        return JsonStreaming.ok(objectMapper, generator -> {
+            generator.writeArrayFieldStart("doctors");
+            Long cursor = after;
+            do {
+                DoctorPage<Doctor> page = doctorService.findDoctorPage(null, null, null, cursor, DoctorService.MAX_PAGE_SIZE);
+                for (Doctor doctor : page.getDoctors()) {
+                    generator.writeObject(doctor);
+                }
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+            generator.writeEndArray();
+        });
+    }
+
     // 5. Define the `saveDoctor` Method:
     // Service method: int saveDoctor(Doctor doctor) returns 1 (success), 0 (error), -1 (conflict)
     @PostMapping("/save/{token}")
+    @RequiresRole("admin")
     public ResponseEntity<Map<String, Object>> saveDoctor(
-            @RequestBody Doctor doctor, 
-            @PathVariable String token) {
+            @RequestBody Doctor doctor) {
         
-        // Validate token for "admin" role
-        ResponseEntity<Map<String, Object>> authError = checkTokenValidity(token, "admin");
-        if (authError != null) {
-            return authError;
-        }
-
         int serviceResult = doctorService.saveDoctor(doctor);
 
         switch (serviceResult) {
@@ -168,17 +295,11 @@ public class DoctorController {
     // 7. Define the `updateDoctor` Method:
     // Service method: int updateDoctor(Long doctorId, Doctor updatedDoctor) returns 1 (success), -1 (not found)
     @PutMapping("/update/{doctorId}/{token}") // Added doctorId to path to identify target
+    @RequiresRole("admin")
     public ResponseEntity<Map<String, Object>> updateDoctor(
             @PathVariable Long doctorId,
-            @RequestBody Doctor updatedDoctor, 
-            @PathVariable String token) {
+            @RequestBody Doctor updatedDoctor) {
         
-        // Validate token for "admin" role
-        ResponseEntity<Map<String, Object>> authError = checkTokenValidity(token, "admin");
-        if (authError != null) {
-            return authError;
-        }
-
         int serviceResult = doctorService.updateDoctor(doctorId, updatedDoctor);
 
         switch (serviceResult) {
@@ -207,15 +328,9 @@ public class DoctorController {
     // 8. Define the `deleteDoctor` Method:
     // Service method: int deleteDoctor(Long doctorId) returns 1 (success), -1 (not found)
     @DeleteMapping("/{doctorId}/{token}")
+    @RequiresRole("admin")
     public ResponseEntity<Map<String, Object>> deleteDoctor(
-            @PathVariable Long doctorId, 
-            @PathVariable String token) {
-
-        // Validate token for "admin" role
-        ResponseEntity<Map<String, Object>> authError = checkTokenValidity(token, "admin");
-        if (authError != null) {
-            return authError;
-        }
+            @PathVariable Long doctorId) {
 
         int serviceResult = doctorService.deleteDoctor(doctorId);
 
@@ -242,37 +357,48 @@ public class DoctorController {
     }
 
     // 9. Define the `filter` Method:
-    // Service method: List<Doctor> filterDoctor(String name, String specialty, String timePeriod)
+    // Service method: DoctorPage<DoctorDTO> filterDoctor(String name, String specialty, String timePeriod, Long afterId, Integer size)
     @GetMapping("/filter")
     public ResponseEntity<Map<String, Object>> filter(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String time,
-            @RequestParam(required = false) String specialty) {
+            @RequestParam(required = false) String specialty,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+
+        if (request.checkNotModified(versions.doctorsETag())) {
+            return null;
+        }
         
-        // Calls the filterDoctor method in the general Service class (as seen in Service.java)
-        List<Doctor> filteredDoctors = service.filterDoctor(name, specialty, time); 
-        System.out.println(filteredDoctors.size());
-        List<DoctorDTO> filtDocDTO = filteredDoctors.stream().map(doc -> new DoctorDTO(doc.getId(), doc.getName(),doc.getEmail())).collect(Collectors.toList());
+        // Calls the filterDoctor method in the general Service class (as seen in Service.java), one page at a time
+        DoctorPage<DoctorDTO> page = service.filterDoctor(name, specialty, time, after, size);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("doctors", filtDocDTO);
+        response.put("doctors", page.getDoctors());
+        response.put("nextCursor", page.getNextCursor());
         
         return ResponseEntity.ok(response);
     }
 
+    private static List<DoctorDTO> toDTOs(List<Doctor> doctors) {
+        return doctors.stream()
+                .map(doctor -> new DoctorDTO(doctor.getId(), doctor.getName(), doctor.getEmail()))
+                .collect(Collectors.toList());
+    }
+
     // Define the `getDoctor` Method:
-    // Service method: Doctor getDoctorDetails(String token)
+    // Service method: Doctor getDoctorDetails(TokenPrincipal principal)
     @GetMapping("/{token}")
-    public ResponseEntity<Map<String, Object>> getDoctor(@PathVariable String token) {
+    @RequiresRole("doctor")
+    public ResponseEntity<Map<String, Object>> getDoctor(TokenPrincipal principal, WebRequest request) {
 
-        // Validate token for "doctor" role
-        ResponseEntity<Map<String, Object>> authError = checkTokenValidity(token, "doctor");
-        if (authError != null) {
-            return authError;
+        if (request.checkNotModified(versions.doctorsETag())) {
+            return null;
         }
 
-        // doctorService.getDoctorDetails is expected to extract ID/email from token
-        Doctor doctor = doctorService.getDoctorDetails(token);
+        // The interceptor already resolved the token's doctor id and email
+        Doctor doctor = doctorService.getDoctorDetails(principal);
 
         if (doctor == null) {
             return new ResponseEntity<>(
@@ -297,18 +423,30 @@ public class DoctorController {
 // 2. Autowire Dependencies:
 //    - Inject `DoctorService` for handling the core logic related to doctors (e.g., CRUD operations, authentication).
 //    - Inject the shared `Service` class for general-purpose features like token validation and filtering.
+//    - Inject `ResourceVersions` for the ETags of the GET endpoints: a request whose `If-None-Match` still matches is
+//      answered with 304 Not Modified before any data is read.
 
 
 // 3. Define the `getDoctorAvailability` Method:
 //    - Handles HTTP GET requests to check a specific doctor’s availability on a given date.
 //    - Requires `user` type, `doctorId`, `date`, and `token` as path variables.
-//    - First validates the token against the user type.
+//    - The token is validated against the user type by the `AuthenticationInterceptor` (`@RequiresRole(fromPath = "userType")`).
 //    - If the token is invalid, returns an error response; otherwise, returns the availability status for the doctor.
+//    - The range variant (`/availability/range/...`) returns free slots for every day from `start` to `end` (at most 31 days)
+//      in one call, so a multi-day booking view no longer issues one request per day.
+//    - The specialty variant (`/availability/specialty/...`) returns each doctor of a specialty with their free slots on a date.
+//    - `/free?at=2025-05-01T10:00` returns the doctors who can be booked for the hour slot containing that time, and
+//      `/free?day=MONDAY&from=09:00&to=12:00` the doctors offering at least one hour in that range of a day of week;
+//      both are answered from the indexed availability rows and need no token.
 
 
 // 4. Define the `getDoctor` Method:
 //    - Handles HTTP GET requests to retrieve a list of all doctors.
 //    - Returns the list within a response map under the key `"doctors"` with HTTP 200 OK status.
+//    - Results are paginated by doctor id: `size` (default 50, at most 100) doctors per page, and `"nextCursor"` is passed
+//      back as `after` to fetch the next page (null on the last page).
+//    - With `?stream=true` every doctor after `after` is streamed in one response, read page by page, so the heap it needs
+//      does not grow with the number of doctors.
 
 
 // 5. Define the `saveDoctor` Method:
@@ -341,3 +479,4 @@ public class DoctorController {
 //    - Handles HTTP GET requests to filter doctors based on name, time, and specialty.
 //    - Accepts `name`, `time`, and `speciality` as path variables.
 //    - Calls the shared `Service` to perform filtering logic and returns matching doctors in the response.
+//    - Paginated like `/all`, with the optional `after` and `size` parameters and a `"nextCursor"` in the response.
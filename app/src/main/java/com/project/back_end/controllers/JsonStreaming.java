@@ -0,0 +1,42 @@
+package com.project.back_end.controllers;
+
+import java.io.IOException;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streamed JSON responses for list endpoints called with {@code ?stream=true}: the body is
+ * written row by row through a Jackson {@link JsonGenerator} while the rows are read, so the
+ * heap a response needs does not grow with the number of rows. The envelope matches the
+ * buffered responses ({@code {"status": "success", ...}}); an empty result is streamed as an
+ * empty array with 200 OK, since the status is sent before the first row is read.
+ */
+final class JsonStreaming {
+
+    private JsonStreaming() {
+    }
+
+    // Writes the fields of the response object after "status"
+    @FunctionalInterface
+    interface Fields {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    // ok: 200 OK with a JSON object streamed from the fields writer
+    static ResponseEntity<StreamingResponseBody> ok(ObjectMapper objectMapper, Fields fields) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeStringField("status", "success");
+                fields.write(generator);
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
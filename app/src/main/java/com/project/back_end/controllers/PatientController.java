@@ -13,57 +13,49 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.util.function.ThrowingConsumer;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.back_end.DTO.AppointmentDTO;
 import com.project.back_end.DTO.Login;
+import com.project.back_end.DTO.TokenPrincipal;
+import com.project.back_end.config.RequiresRole;
 import com.project.back_end.models.Patient;
 import com.project.back_end.services.MainService;
 import com.project.back_end.services.PatientService;
+import com.project.back_end.services.ResourceVersions;
 
 @RestController
 @RequestMapping("/patient")
 public class PatientController {
     PatientService patientService;
     MainService service;
+    ResourceVersions versions;
+    ObjectMapper objectMapper;
     
-    public PatientController(PatientService patientService, MainService service) {
+    public PatientController(PatientService patientService, MainService service, ResourceVersions versions,
+            ObjectMapper objectMapper) {
         this.patientService = patientService;
         this.service = service;
-    }
-
-    /**
-     * Helper method to validate the token (assumed to exist in Service class).
-     * @param token The security token.
-     * @param requiredRole The role needed for authorization (e.g., "patient").
-     * @return ResponseEntity with an error map if invalid, or null if the token is valid (HTTP 200 OK).
-     */
-    private ResponseEntity<Map<String, Object>> checkTokenValidity(String token, String requiredRole) {
-        // Uses the general Service method for token validation
-        ResponseEntity<String> validationResponse = service.validateToken(token, requiredRole);
-        
-        if (validationResponse.getStatusCode() != HttpStatus.OK) {
-            Map<String, Object> errorBody = new HashMap<>();
-            errorBody.put("status", "error");
-            errorBody.put("message", validationResponse.getBody()); 
-            
-            // Return the original error status code (e.g., 401 UNAUTHORIZED)
-            return new ResponseEntity<>(errorBody, validationResponse.getStatusCode());
-        }
-        return null; // Token is valid
+        this.versions = versions;
+        this.objectMapper = objectMapper;
     }
 
     // 3. Define the `getPatient` Method:
-    // Service method: Patient getPatientDetails(String token)
+    // Service method: Patient getPatientDetails(TokenPrincipal principal)
     @GetMapping("/{token}")
-    public ResponseEntity<Map<String, Object>> getPatient(@PathVariable String token) {
+    @RequiresRole("patient")
+    public ResponseEntity<Map<String, Object>> getPatient(TokenPrincipal principal, WebRequest request) {
 
-        // Validate token for "patient" role
-        ResponseEntity<Map<String, Object>> authError = checkTokenValidity(token, "patient");
-        if (authError != null) {
-            return authError;
+        // Unchanged since the client's copy: 304 Not Modified without reading anything
+        if (request.checkNotModified(versions.patientETag(principal.getId()))) {
+            return null;
         }
 
-        // patientService.getPatientDetails is expected to extract ID/email from token
-        Patient patient = patientService.getPatientDetails(token);
+        // The interceptor already resolved the token's patient id and email
+        Patient patient = patientService.getPatientDetails(principal);
 
         if (patient == null) {
             return new ResponseEntity<>(
@@ -135,15 +127,13 @@ public class PatientController {
     // PatientService.getPatientAppointment returns List<AppointmentDTO> or empty list.
     // Patient ID is usually extracted from the token, but the request specifies patient ID as path variable.
     @GetMapping("/{patientId}/appointments/{role}/{token}")
+    @RequiresRole(fromPath = "role")
     public ResponseEntity<?> getPatientAppointment(
             @PathVariable Long patientId,
-            @PathVariable String role,
-            @PathVariable String token) {
+            WebRequest request) {
 
-        // Validate the token (e.g., must be "patient" or potentially "doctor" accessing patient records)
-        ResponseEntity<Map<String, Object>> authError = checkTokenValidity(token, role);
-        if (authError != null) {
-            return authError;
+        if (request.checkNotModified(versions.patientETag(patientId))) {
+            return null;
         }
 
         // The service method expects the Patient ID
@@ -162,24 +152,44 @@ public class PatientController {
         return ResponseEntity.ok(response);
     }
 
+    // Define the `streamPatientAppointment` Method (`?stream=true`):
+    // PatientService.streamPatientAppointments writes each AppointmentDTO as it is read, however long the history.
+    @GetMapping(value = "/{patientId}/appointments/{role}/{token}", params = "stream=true")
+    @RequiresRole(fromPath = "role")
+    public ResponseEntity<StreamingResponseBody> streamPatientAppointment(
+            @PathVariable Long patientId,
+            WebRequest request) {
+
+        if (request.checkNotModified(versions.patientETag(patientId))) {
+            return null;
+        }
+
+        return JsonStreaming.ok(objectMapper, generator -> {
+            generator.writeArrayFieldStart("appointments");
+            patientService.streamPatientAppointments(patientId,
+                    ThrowingConsumer.<AppointmentDTO>of(generator::writeObject));
+            generator.writeEndArray();
+        });
+    }
+
     // 7. Define the `filterPatientAppointment` Method:
     // Service.filterPatient returns List<AppointmentDTO> or empty list.
-    // patientId is assumed to be extracted inside the Service.filterPatient method via token.
+    // patientId comes from the TokenPrincipal resolved by the AuthenticationInterceptor.
     @GetMapping("/appointments/filter")
+    @RequiresRole("patient")
     public ResponseEntity<?> filterPatientAppointment(
             @RequestParam(required = false) String condition,
             @RequestParam(required = false) String doctorName,
-            @RequestParam String token) {
+            TokenPrincipal principal,
+            WebRequest request) {
 
-        // Validate token for "patient" role
-        ResponseEntity<Map<String, Object>> authError = checkTokenValidity(token, "patient");
-        if (authError != null) {
-            return authError;
+        if (request.checkNotModified(versions.patientETag(principal.getId()))) {
+            return null;
         }
 
-        // Delegates filtering to the shared service, passing the token for patient identification.
+        // Delegates filtering to the shared service, passing the patient ID resolved from the token.
         // The Service class will handle the logic using PatientService internally.
-        List<?> filteredAppointments = service.filterPatient(token, condition, doctorName); 
+        List<?> filteredAppointments = service.filterPatient(principal.getId(), condition, doctorName);
 
         if (filteredAppointments.isEmpty()) {
             return new ResponseEntity<>(
@@ -204,12 +214,15 @@ public class PatientController {
 // 2. Autowire Dependencies:
 //    - Inject `PatientService` to handle patient-specific logic such as creation, retrieval, and appointments.
 //    - Inject the shared `Service` class for tasks like token validation and login authentication.
+//    - Inject `ResourceVersions` for the ETags of the GET endpoints: a request whose `If-None-Match` still matches is
+//      answered with 304 Not Modified before any data is read.
 
 
 // 3. Define the `getPatient` Method:
 //    - Handles HTTP GET requests to retrieve patient details using a token.
 //    - Validates the token for the `"patient"` role using the shared service.
 //    - If the token is valid, returns patient information; otherwise, returns an appropriate error message.
+//    - The patient is the one of the `TokenPrincipal` resolved by the `AuthenticationInterceptor`; the token is not parsed again.
 
 
 // 4. Define the `createPatient` Method:
@@ -231,6 +244,8 @@ public class PatientController {
 //    - Requires the patient ID, token, and user role as path variables.
 //    - Validates the token using the shared service.
 //    - If valid, retrieves the patient's appointment data from `PatientService`; otherwise, returns a validation error.
+//    - With `?stream=true` the appointments are streamed straight from the database into the response (an empty history is
+//      an empty array), for admin and bulk clients pulling long histories.
 
 
 // 7. Define the `filterPatientAppointment` Method:
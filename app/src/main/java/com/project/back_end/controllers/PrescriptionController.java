@@ -12,10 +12,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.project.back_end.config.RequiresRole;
 import com.project.back_end.models.Prescription;
 import com.project.back_end.services.AppointmentService;
 import com.project.back_end.services.PrescriptionService;
-import com.project.back_end.services.MainService;
 
 import jakarta.validation.Valid;
 
@@ -23,56 +23,27 @@ import jakarta.validation.Valid;
 @RequestMapping("${api.path}prescription")
 public class PrescriptionController {
     PrescriptionService prescriptionService;
-    MainService service;
     AppointmentService appointmentService;
 
-    public PrescriptionController(PrescriptionService prescriptionService, MainService service,
+    public PrescriptionController(PrescriptionService prescriptionService,
             AppointmentService appointmentService) {
         this.prescriptionService = prescriptionService;
-        this.service = service;
         this.appointmentService = appointmentService;
     }
 
-    /**
-     * Helper method to validate the token (copied from PatientController for consistency).
-     * @param token The security token.
-     * @param requiredRole The role needed for authorization (e.g., "doctor").
-     * @return ResponseEntity with an error map if invalid, or null if the token is valid (HTTP 200 OK).
-     */
-    private ResponseEntity<Map<String, Object>> checkTokenValidity(String token, String requiredRole) {
-        // Uses the general Service method for token validation
-        ResponseEntity<String> validationResponse = service.validateToken(token, requiredRole);
-        
-        if (validationResponse.getStatusCode() != HttpStatus.OK) {
-            Map<String, Object> errorBody = new HashMap<>();
-            errorBody.put("status", "error");
-            errorBody.put("message", validationResponse.getBody()); 
-            
-            // Return the original error status code (e.g., 401 UNAUTHORIZED)
-            return new ResponseEntity<>(errorBody, validationResponse.getStatusCode());
-        }
-        return null; // Token is valid
-    }
-
     // 3. Define the `savePrescription` Method:
     // PrescriptionService.savePrescription returns ResponseEntity<String> (201 or 500)
     // AppointmentService.changeStatus returns int (1 on success, -1 on failure/not found)
     @PostMapping("/save/{token}")
+    @RequiresRole("doctor")
     public ResponseEntity<?> savePrescription(
-            @Valid @RequestBody Prescription prescription, 
-            @PathVariable String token) {
+            @Valid @RequestBody Prescription prescription) {
 
-        // 1. Validate token for "doctor" role
-        ResponseEntity<Map<String, Object>> authError = checkTokenValidity(token, "doctor");
-        if (authError != null) {
-            return authError;
-        }
-
-        // 2. Save the prescription
+        // 1. Save the prescription (the token was validated for the "doctor" role by the interceptor)
         ResponseEntity<String> saveResponse = prescriptionService.savePrescription(prescription);
 
         if (saveResponse.getStatusCode() == HttpStatus.CREATED) {
-            // 3. Update the corresponding appointment status after successful prescription save
+            // 2. Update the corresponding appointment status after successful prescription save
             Long appointmentId = prescription.getAppointmentId();
             int PRESCRIPTION_STATUS_COMPLETED = 1;
             // Assume "Prescribed" is the new status.
@@ -95,17 +66,11 @@ public class PrescriptionController {
     // 4. Define the `getPrescription` Method:
     // PrescriptionService.getPrescription returns ResponseEntity<Map<String, Object>> (200 OK, 404 NOT_FOUND, or 500 ERROR)
     @GetMapping("/{appointmentId}/{token}")
+    @RequiresRole("doctor")
     public ResponseEntity<Map<String, Object>> getPrescription(
-            @PathVariable Long appointmentId, 
-            @PathVariable String token) {
-
-        // 1. Validate token for "doctor" role
-        ResponseEntity<Map<String, Object>> authError = checkTokenValidity(token, "doctor");
-        if (authError != null) {
-            return authError;
-        }
+            @PathVariable Long appointmentId) {
 
-        // 2. Fetch the prescription(s)
+        // 1. Fetch the prescription(s)
         ResponseEntity<Map<String, Object>> serviceResponse = prescriptionService.getPrescription(appointmentId);
 
         // Service response already contains status, message, and the prescription object(s)
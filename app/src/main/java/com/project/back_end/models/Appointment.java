@@ -3,28 +3,48 @@ package com.project.back_end.models;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotNull;
 
+/**
+ * A booked one-hour slot. The doctor and patient are lazy: writes and ownership checks only
+ * need their ids (the foreign keys), and the dashboards and patient history read
+ * {@code AppointmentDTO} projections that join exactly the columns they show.
+ */
 @Entity
+// Ownership check: the appointment row alone, its patient compared by id
+@NamedEntityGraph(name = Appointment.OWNERSHIP_GRAPH)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_appointment_doctor_slot", columnNames = {"doctor_id", "slot_start"}))
 public class Appointment {
 
+    public static final String OWNERSHIP_GRAPH = "Appointment.ownership";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @NotNull(message = "Doctor cannot be null")
     private Doctor doctor;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @NotNull(message = "The appointment must be associated with a patient when created")
     private Patient patient;
 
@@ -34,6 +54,17 @@ public class Appointment {
     @NotNull(message = "The status of the appointment cannot be null")
     private int status;
 
+    // Start of the one-hour slot the appointment occupies; unique per doctor so a slot cannot be booked twice
+    @JsonIgnore
+    @Column(name = "slot_start")
+    private LocalDateTime slotStart;
+
+    @PrePersist
+    @PreUpdate
+    private void assignSlotStart() {
+        slotStart = appointmentTime == null ? null : appointmentTime.truncatedTo(ChronoUnit.HOURS);
+    }
+
     @Transient
     private LocalDateTime getEndTime() {
         return appointmentTime.plusHours(1);
@@ -89,4 +120,9 @@ public class Appointment {
         this.status = status;
     }
 
+    // isOwnedBy: compares the patient foreign key; reading the id of the lazy patient does not load it
+    public boolean isOwnedBy(Long patientId) {
+        return patient != null && patient.getId() != null && patient.getId().equals(patientId);
+    }
+
 }
@@ -1,14 +1,23 @@
 package com.project.back_end.models;
 
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+import org.hibernate.annotations.BatchSize;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import jakarta.persistence.ElementCollection;
+import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.OneToMany;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
@@ -41,8 +50,12 @@ public class Doctor {
     @Pattern(regexp = "^[0-9]{10}$", message = "Phone number must be 10 digits")
     private String phone;
 
-    @ElementCollection
-    private List<String> availableTimes;
+    // Weekly availability as indexed rows; exposed in JSON as the "availableTimes" strings below.
+    // Lists of doctors fetch it with an entity graph; lazy loads elsewhere are batched.
+    @JsonIgnore
+    @BatchSize(size = 100)
+    @OneToMany(mappedBy = "doctor", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<DoctorAvailability> availability = new ArrayList<>();
 
     public Long getId() {
         return id;
@@ -92,12 +105,47 @@ public class Doctor {
         this.phone = phone;
     }
 
+    public List<DoctorAvailability> getAvailability() {
+        return availability;
+    }
+
+    // "HH:mm-HH:mm" for a range offered on every day, "MON HH:mm-HH:mm" for a range offered on some days only
     public List<String> getAvailableTimes() {
-        return availableTimes;
+        Map<String, List<DoctorAvailability>> byRange = new TreeMap<>();
+        for (DoctorAvailability slot : availability) {
+            byRange.computeIfAbsent(slot.rangeLabel(), k -> new ArrayList<>()).add(slot);
+        }
+        List<String> times = new ArrayList<>();
+        byRange.forEach((range, slots) -> {
+            if (slots.stream().map(DoctorAvailability::getDayOfWeek).distinct().count() == DayOfWeek.values().length) {
+                times.add(range);
+            } else {
+                slots.stream()
+                        .sorted(Comparator.comparingInt(DoctorAvailability::getDayOfWeek))
+                        .forEach(slot -> times.add(slot.dayRangeLabel()));
+            }
+        });
+        return times;
     }
 
+    // Replaces the availability with the given ranges, keeping rows that did not change so only the differences are written
     public void setAvailableTimes(List<String> availableTimes) {
-        this.availableTimes = availableTimes;
+        List<DoctorAvailability> wanted = new ArrayList<>();
+        if (availableTimes != null) {
+            for (String range : availableTimes) {
+                for (DoctorAvailability slot : DoctorAvailability.parse(this, range)) {
+                    if (wanted.stream().noneMatch(slot::sameSlotAs)) {
+                        wanted.add(slot);
+                    }
+                }
+            }
+        }
+        availability.removeIf(existing -> wanted.stream().noneMatch(existing::sameSlotAs));
+        for (DoctorAvailability slot : wanted) {
+            if (availability.stream().noneMatch(slot::sameSlotAs)) {
+                availability.add(slot);
+            }
+        }
     }
 
 }
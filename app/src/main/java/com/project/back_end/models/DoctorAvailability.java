@@ -0,0 +1,161 @@
+package com.project.back_end.models;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * One weekly availability range of a doctor: a day of week (ISO, 1 = Monday) and a start and
+ * end minute of the day. The composite index serves "who is available on day D around minute M"
+ * lookups without touching the doctor table.
+ */
+@Entity
+@Table(name = "doctor_availability", indexes = {
+        @Index(name = "idx_availability_day_start_end", columnList = "day_of_week, start_minute, end_minute"),
+        @Index(name = "idx_availability_doctor", columnList = "doctor_id")
+})
+public class DoctorAvailability {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "doctor_id")
+    private Doctor doctor;
+
+    @Column(name = "day_of_week", nullable = false)
+    private int dayOfWeek;
+
+    @Column(name = "start_minute", nullable = false)
+    private int startMinute;
+
+    @Column(name = "end_minute", nullable = false)
+    private int endMinute;
+
+    protected DoctorAvailability() {
+    }
+
+    public DoctorAvailability(Doctor doctor, DayOfWeek day, int startMinute, int endMinute) {
+        this.doctor = doctor;
+        this.dayOfWeek = day.getValue();
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+    }
+
+    // parse: "09:00-12:00" applies to every day; "MON 09:00-12:00" (or "MONDAY 09:00-12:00") to one day.
+    // Invalid or empty ranges give no rows.
+    public static List<DoctorAvailability> parse(Doctor doctor, String range) {
+        List<DoctorAvailability> rows = new ArrayList<>();
+        if (range == null) {
+            return rows;
+        }
+        String text = range.trim();
+        DayOfWeek day = null;
+        int space = text.indexOf(' ');
+        if (space > 0) {
+            day = parseDay(text.substring(0, space));
+            if (day == null) {
+                return rows;
+            }
+            text = text.substring(space + 1).trim();
+        }
+        String[] parts = text.split("-");
+        if (parts.length != 2) {
+            return rows;
+        }
+        try {
+            int start = LocalTime.parse(parts[0].trim()).toSecondOfDay() / 60;
+            int end = LocalTime.parse(parts[1].trim()).toSecondOfDay() / 60;
+            if (end <= start) {
+                return rows;
+            }
+            if (day != null) {
+                rows.add(new DoctorAvailability(doctor, day, start, end));
+            } else {
+                for (DayOfWeek each : DayOfWeek.values()) {
+                    rows.add(new DoctorAvailability(doctor, each, start, end));
+                }
+            }
+        } catch (DateTimeParseException ignored) {
+            // Ignore unparsable time strings
+        }
+        return rows;
+    }
+
+    private static DayOfWeek parseDay(String text) {
+        String upper = text.toUpperCase(Locale.ROOT);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (day.name().equals(upper) || day.name().startsWith(upper) && upper.length() == 3) {
+                return day;
+            }
+        }
+        return null;
+    }
+
+    // "09:00-12:00"
+    public String rangeLabel() {
+        return minuteLabel(startMinute) + "-" + minuteLabel(endMinute);
+    }
+
+    // "MON 09:00-12:00"
+    public String dayRangeLabel() {
+        return getDay().getDisplayName(TextStyle.SHORT, Locale.ROOT).toUpperCase(Locale.ROOT) + " " + rangeLabel();
+    }
+
+    private static String minuteLabel(int minute) {
+        return LocalTime.ofSecondOfDay(minute * 60L).toString();
+    }
+
+    // Same day and range, regardless of id or owning instance
+    public boolean sameSlotAs(DoctorAvailability other) {
+        return dayOfWeek == other.dayOfWeek && startMinute == other.startMinute && endMinute == other.endMinute;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Doctor getDoctor() {
+        return doctor;
+    }
+
+    public void setDoctor(Doctor doctor) {
+        this.doctor = doctor;
+    }
+
+    public DayOfWeek getDay() {
+        return DayOfWeek.of(dayOfWeek);
+    }
+
+    public int getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    public int getStartMinute() {
+        return startMinute;
+    }
+
+    public int getEndMinute() {
+        return endMinute;
+    }
+
+}
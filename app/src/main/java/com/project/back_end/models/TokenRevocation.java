@@ -0,0 +1,38 @@
+package com.project.back_end.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Epoch second before which every token of one principal ({@code role:id}) is rejected, kept in
+ * the database so revocations survive restarts and reach every instance.
+ */
+@Entity
+@Table(name = "token_revocation")
+public class TokenRevocation {
+
+    @Id
+    @Column(name = "principal_key", length = 64)
+    private String principalKey;
+
+    @Column(name = "revoked_before", nullable = false)
+    private long revokedBefore;
+
+    protected TokenRevocation() {
+    }
+
+    public TokenRevocation(String principalKey, long revokedBefore) {
+        this.principalKey = principalKey;
+        this.revokedBefore = revokedBefore;
+    }
+
+    public String getPrincipalKey() {
+        return principalKey;
+    }
+
+    public long getRevokedBefore() {
+        return revokedBefore;
+    }
+}
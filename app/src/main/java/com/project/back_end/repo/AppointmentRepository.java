@@ -1,51 +1,75 @@
 package com.project.back_end.repo;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.project.back_end.DTO.AppointmentDTO;
 import com.project.back_end.models.Appointment;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface AppointmentRepository  extends JpaRepository<Appointment, Long>{
+
+   // Rows per driver round trip for streamed queries
+   String STREAM_FETCH_SIZE = "500";
+
+   // Select clause of the AppointmentDTO projections: exactly the DTO's columns, joined from doctor and patient,
+   // read into DTOs without loading any entity (no password hash, no persistence context entries)
+   String APPOINTMENT_DTO_SELECT = "SELECT new com.project.back_end.DTO.AppointmentDTO(" +
+           "a.id, d.id, d.name, p.id, p.name, p.email, p.phone, p.address, a.appointmentTime, a.status) " +
+           "FROM Appointment a JOIN a.doctor d JOIN a.patient p ";
+
 //Custom Query Methods:
 
-//    - **findByDoctorIdAndAppointmentTimeBetween**:
-//      - This method retrieves a list of appointments for a specific doctor within a given time range.
-//      - The doctor’s available times are eagerly fetched to avoid lazy loading.
-//      - Return type: List<Appointment>
+//    - **findAppointmentDTOsByDoctorIdAndAppointmentTimeBetween**:
+//      - This method retrieves a doctor's appointments within a given time range as `AppointmentDTO`s, in time order.
+//      - A constructor-expression projection: one statement, no entities; used to load the doctor dashboard's day sheets.
+//      - Return type: List<AppointmentDTO>
 //      - Parameters: Long doctorId, LocalDateTime start, LocalDateTime end
-//      - It uses a LEFT JOIN to fetch the doctor’s available times along with the appointments.
-   @Query("SELECT a FROM Appointment a " +
-           "LEFT JOIN FETCH a.doctor d " +
-           //"LEFT JOIN FETCH d.availableTimes " +
-           "WHERE d.id = :doctorId AND a.appointmentTime BETWEEN :start AND :end")
-   List<Appointment> findByDoctorIdAndAppointmentTimeBetween(
+   @Query(APPOINTMENT_DTO_SELECT +
+           "WHERE d.id = :doctorId AND a.appointmentTime BETWEEN :start AND :end ORDER BY a.appointmentTime")
+   List<AppointmentDTO> findAppointmentDTOsByDoctorIdAndAppointmentTimeBetween(
         @Param("doctorId") Long doctorId,
         @Param("start") LocalDateTime start,
         @Param("end") LocalDateTime end
     );
 
-//    - **findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween**:
-//      - This method retrieves appointments for a specific doctor and patient name (ignoring case) within a given time range.
-//      - It performs a LEFT JOIN to fetch both the doctor and patient details along with the appointment times.
-//      - Return type: List<Appointment>
-//      - Parameters: Long doctorId, String patientName, LocalDateTime start, LocalDateTime end
-   @Query("SELECT a FROM Appointment a " +
-           "LEFT JOIN FETCH a.doctor d " +
-           "LEFT JOIN FETCH a.patient p " +
-           "WHERE d.id = :doctorId " +
-           "AND LOWER(p.name) LIKE LOWER(CONCAT('%', :patientName, '%')) " +
-           "AND a.appointmentTime BETWEEN :start AND :end")
-   List<Appointment> findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
+//    - **findAppointmentTimesByDoctorIdAndAppointmentTimeBetween**:
+//      - This method retrieves only the start times of a doctor's appointments within a given time range.
+//      - It loads no entities, which is all the booking calendar needs to mark booked slots.
+//      - Return type: List<LocalDateTime>
+//      - Parameters: Long doctorId, LocalDateTime start, LocalDateTime end
+   @Query("SELECT a.appointmentTime FROM Appointment a " +
+           "WHERE a.doctor.id = :doctorId AND a.appointmentTime BETWEEN :start AND :end")
+   List<LocalDateTime> findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(
         @Param("doctorId") Long doctorId,
-        @Param("patientName") String patientName,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end
+    );
+
+//    - **findDoctorIdsAndAppointmentTimesByDoctorIdInAndAppointmentTimeBetween**:
+//      - This method retrieves the doctor id and start time of every appointment of several doctors within a given time range.
+//      - One query serves a whole list of doctors; each row is { doctorId, appointmentTime }.
+//      - Return type: List<Object[]>
+//      - Parameters: Collection<Long> doctorIds, LocalDateTime start, LocalDateTime end
+   @Query("SELECT a.doctor.id, a.appointmentTime FROM Appointment a " +
+           "WHERE a.doctor.id IN :doctorIds AND a.appointmentTime BETWEEN :start AND :end")
+   List<Object[]> findDoctorIdsAndAppointmentTimesByDoctorIdInAndAppointmentTimeBetween(
+        @Param("doctorIds") Collection<Long> doctorIds,
         @Param("start") LocalDateTime start,
         @Param("end") LocalDateTime end
     );
@@ -60,46 +84,95 @@ public interface AppointmentRepository  extends JpaRepository<Appointment, Long>
    @Query("DELETE FROM Appointment a WHERE a.doctor.id = :doctorId")
    void deleteAllByDoctorId(@Param("doctorId") Long doctorId);
 
-//    - **findByPatientId**:
-//      - This method retrieves all appointments for a specific patient.
-//      - Return type: List<Appointment>
+//    - **findOwnedById**:
+//      - This method retrieves an appointment row alone (ownership entity graph) for writes that check who owns it:
+//        the doctor and patient stay unloaded proxies, and `Appointment.isOwnedBy` compares the patient_id foreign key.
+//      - Return type: Optional<Appointment>
+//      - Parameters: Long id
+   @EntityGraph(Appointment.OWNERSHIP_GRAPH)
+   Optional<Appointment> findOwnedById(Long id);
+
+//    - **findAppointmentDTOsByPatientId**:
+//      - This method retrieves all appointments for a specific patient as `AppointmentDTO`s, without loading any entity.
+//      - Return type: List<AppointmentDTO>
 //      - Parameters: Long patientId
-   List<Appointment> findByPatientId(Long patientId);
+   @Query(APPOINTMENT_DTO_SELECT + "WHERE p.id = :patientId")
+   List<AppointmentDTO> findAppointmentDTOsByPatientId(@Param("patientId") Long patientId);
 
-//    - **findByPatient_IdAndStatusOrderByAppointmentTimeAsc**:
-//      - This method retrieves all appointments for a specific patient with a given status, ordered by the appointment time.
-//      - Return type: List<Appointment>
+//    - **streamAppointmentDTOsByPatientId**:
+//      - This method streams all appointments of a specific patient as `AppointmentDTO`s in appointment time order.
+//      - Rows are fetched from the driver `STREAM_FETCH_SIZE` at a time (MySQL needs `useCursorFetch=true` on the URL);
+//        being projections, they add nothing to the persistence context. The stream must be consumed and closed inside a transaction.
+//      - Return type: Stream<AppointmentDTO>
+//      - Parameters: Long patientId
+   @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+   @Query(APPOINTMENT_DTO_SELECT + "WHERE p.id = :patientId ORDER BY a.appointmentTime")
+   Stream<AppointmentDTO> streamAppointmentDTOsByPatientId(@Param("patientId") Long patientId);
+
+//    - **findAppointmentDTOsByPatientIdAndStatus**:
+//      - This method retrieves a patient's appointments with a given status as `AppointmentDTO`s, ordered by the appointment time.
+//      - Return type: List<AppointmentDTO>
 //      - Parameters: Long patientId, int status
-   List<Appointment> findByPatient_IdAndStatusOrderByAppointmentTimeAsc(Long patientId, int status);
+   @Query(APPOINTMENT_DTO_SELECT + "WHERE p.id = :patientId AND a.status = :status ORDER BY a.appointmentTime")
+   List<AppointmentDTO> findAppointmentDTOsByPatientIdAndStatus(
+        @Param("patientId") Long patientId,
+        @Param("status") int status
+   );
 
-//    - **filterByDoctorNameAndPatientId**:
-//      - This method retrieves appointments based on a doctor’s name (using a LIKE query) and the patient’s ID.
-//      - Return type: List<Appointment>
+//    - **findAppointmentDTOsByDoctorNameAndPatientId**:
+//      - This method retrieves a patient's appointments with doctors whose name contains the given text (ignoring case)
+//        as `AppointmentDTO`s.
+//      - Return type: List<AppointmentDTO>
 //      - Parameters: String doctorName, Long patientId
-   @Query("SELECT a FROM Appointment a " +
-           "JOIN a.doctor d " +
+   @Query(APPOINTMENT_DTO_SELECT +
            "WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%')) " +
-           "AND a.patient.id = :patientId")
-    List<Appointment> filterByDoctorNameAndPatientId(
+           "AND p.id = :patientId")
+   List<AppointmentDTO> findAppointmentDTOsByDoctorNameAndPatientId(
         @Param("doctorName") String doctorName,
         @Param("patientId") Long patientId
-    );
+   );
 
-//    - **filterByDoctorNameAndPatientIdAndStatus**:
-//      - This method retrieves appointments based on a doctor’s name (using a LIKE query), patient’s ID, and a specific appointment status.
-//      - Return type: List<Appointment>
+//    - **findAppointmentDTOsByDoctorNameAndPatientIdAndStatus**:
+//      - Like `findAppointmentDTOsByDoctorNameAndPatientId`, restricted to a specific appointment status.
+//      - Return type: List<AppointmentDTO>
 //      - Parameters: String doctorName, Long patientId, int status
-   @Query("SELECT a FROM Appointment a " +
-           "JOIN a.doctor d " +
+   @Query(APPOINTMENT_DTO_SELECT +
            "WHERE LOWER(d.name) LIKE LOWER(CONCAT('%', :doctorName, '%')) " +
-           "AND a.patient.id = :patientId " +
+           "AND p.id = :patientId " +
            "AND a.status = :status")
-   List<Appointment> filterByDoctorNameAndPatientIdAndStatus(
+   List<AppointmentDTO> findAppointmentDTOsByDoctorNameAndPatientIdAndStatus(
         @Param("doctorName") String doctorName,
         @Param("patientId") Long patientId,
         @Param("status") int status
    );
 
+//    - **findAppointmentDTOsByDoctorIdsAndPatientId**:
+//      - This method retrieves a patient's appointments with any of the given doctors as `AppointmentDTO`s.
+//      - Used with the ids of the doctors matching a name in the in-memory name index, so the filter is served by the foreign key indexes.
+//      - Return type: List<AppointmentDTO>
+//      - Parameters: Collection<Long> doctorIds, Long patientId
+   @Query(APPOINTMENT_DTO_SELECT +
+           "WHERE d.id IN :doctorIds " +
+           "AND p.id = :patientId")
+   List<AppointmentDTO> findAppointmentDTOsByDoctorIdsAndPatientId(
+        @Param("doctorIds") Collection<Long> doctorIds,
+        @Param("patientId") Long patientId
+   );
+
+//    - **findAppointmentDTOsByDoctorIdsAndPatientIdAndStatus**:
+//      - Like `findAppointmentDTOsByDoctorIdsAndPatientId`, restricted to a specific appointment status.
+//      - Return type: List<AppointmentDTO>
+//      - Parameters: Collection<Long> doctorIds, Long patientId, int status
+   @Query(APPOINTMENT_DTO_SELECT +
+           "WHERE d.id IN :doctorIds " +
+           "AND p.id = :patientId " +
+           "AND a.status = :status")
+   List<AppointmentDTO> findAppointmentDTOsByDoctorIdsAndPatientIdAndStatus(
+        @Param("doctorIds") Collection<Long> doctorIds,
+        @Param("patientId") Long patientId,
+        @Param("status") int status
+   );
+
 //    - **updateStatus**:
 //      - This method updates the status of a specific appointment based on its ID.
 //      - Return type: void
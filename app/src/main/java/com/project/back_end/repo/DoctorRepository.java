@@ -1,8 +1,17 @@
 package com.project.back_end.repo;
 
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -10,34 +19,91 @@ import org.springframework.stereotype.Repository;
 import com.project.back_end.models.Doctor;
 
 @Repository
-public interface DoctorRepository extends JpaRepository<Doctor, Long>{
+public interface DoctorRepository extends JpaRepository<Doctor, Long>, JpaSpecificationExecutor<Doctor> {
 
 //Custom Query Methods:
+//    - **findAll**:
+//      - Overridden to fetch every doctor's availability rows in the same query instead of one extra select per doctor.
+//      - Return type: List<Doctor>
+   @Override
+   @EntityGraph(attributePaths = "availability")
+   List<Doctor> findAll();
+
+//    - **findAll (Specification, Sort)**:
+//      - Overridden like `findAll()` so a doctor search composed from `DoctorSpecifications` loads the matching doctors
+//        and their availability rows in one statement.
+//      - Return type: List<Doctor>
+//      - Parameters: Specification<Doctor> spec, Sort sort
+   @Override
+   @EntityGraph(attributePaths = "availability")
+   List<Doctor> findAll(Specification<Doctor> spec, Sort sort);
+
 //    - **findByEmail**:
 //      - This method retrieves a Doctor by their email.
 //      - Return type: Doctor
 //      - Parameters: String email
    Doctor findByEmail(String email);
 
-//    - **findByNameLike**:
-//      - This method retrieves a list of Doctors whose name contains the provided search string (case-sensitive).
-//      - The `CONCAT('%', :name, '%')` is used to create a pattern for partial matching.
-//      - Return type: List<Doctor>
-//      - Parameters: String name
-   @Query("SELECT d FROM Doctor d WHERE d.name LIKE CONCAT('%', :name, '%')")
-   List<Doctor> findByNameLike(@Param("name") String name);
-
-//    - **findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase**:
-//      - This method retrieves a list of Doctors where the name contains the search string (case-insensitive) and the specialty matches exactly (case-insensitive).
-//      - It combines both fields for a more specific search.
-//      - Return type: List<Doctor>
-//      - Parameters: String name, String specialty
-   List<Doctor> findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(String name, String specialty);
-
 //    - **findBySpecialtyIgnoreCase**:
 //      - This method retrieves a list of Doctors with the specified specialty, ignoring case sensitivity.
+//      - The doctors' availability rows are fetched in the same query, so their availability can be compiled without extra selects.
 //      - Return type: List<Doctor>
 //      - Parameters: String specialty
+   @EntityGraph(attributePaths = "availability")
    List<Doctor> findBySpecialtyIgnoreCase(String specialty);
 
+//    - **findWithAvailabilityById**:
+//      - This method retrieves a Doctor together with their availability rows in a single query.
+//      - Used to compile or update a doctor's availability without touching the lazy collection outside a session.
+//      - Return type: Optional<Doctor>
+//      - Parameters: Long id
+   @EntityGraph(attributePaths = "availability")
+   Optional<Doctor> findWithAvailabilityById(Long id);
+
+//    - **findDoctorsAvailableAt**:
+//      - This method retrieves the doctors offering the whole hour slot starting at the given minute of a day of week
+//        and having no appointment in that slot yet.
+//      - Served by the (day_of_week, start_minute, end_minute) index on doctor_availability.
+//      - Return type: List<Doctor>
+//      - Parameters: int dayOfWeek (ISO, 1 = Monday), int minute, LocalDateTime slotStart
+   @Query("SELECT DISTINCT d FROM DoctorAvailability a JOIN a.doctor d " +
+           "WHERE a.dayOfWeek = :dayOfWeek AND a.startMinute <= :minute AND a.endMinute >= :minute + 60 " +
+           "AND NOT EXISTS (SELECT 1 FROM Appointment ap WHERE ap.doctor = d AND ap.slotStart = :slotStart)")
+   List<Doctor> findDoctorsAvailableAt(
+        @Param("dayOfWeek") int dayOfWeek,
+        @Param("minute") int minute,
+        @Param("slotStart") LocalDateTime slotStart
+   );
+
+//    - **findDoctorsFreeAt**:
+//      - This method retrieves the doctors free for the one-hour slot containing the given time.
+//      - Return type: List<Doctor>
+//      - Parameters: LocalDateTime time
+   default List<Doctor> findDoctorsFreeAt(LocalDateTime time) {
+       LocalDateTime slotStart = time.truncatedTo(ChronoUnit.HOURS);
+       return findDoctorsAvailableAt(time.getDayOfWeek().getValue(), slotStart.getHour() * 60, slotStart);
+   }
+
+//    - **findDoctorsWithAvailabilityBetween**:
+//      - This method retrieves the doctors whose availability on a day of week overlaps the given minute range by at least an hour.
+//      - Served by the (day_of_week, start_minute, end_minute) index on doctor_availability.
+//      - Return type: List<Doctor>
+//      - Parameters: int dayOfWeek (ISO, 1 = Monday), int fromMinute, int toMinute
+   @Query("SELECT DISTINCT d FROM DoctorAvailability a JOIN a.doctor d " +
+           "WHERE a.dayOfWeek = :dayOfWeek AND a.startMinute <= :toMinute - 60 AND a.endMinute >= :fromMinute + 60 " +
+           "AND least(a.endMinute, :toMinute) - greatest(a.startMinute, :fromMinute) >= 60")
+   List<Doctor> findDoctorsWithAvailabilityBetween(
+        @Param("dayOfWeek") int dayOfWeek,
+        @Param("fromMinute") int fromMinute,
+        @Param("toMinute") int toMinute
+   );
+
+//    - **findDoctorsWithSlotBetween**:
+//      - This method retrieves the doctors with at least an hour of availability between two times of a day of week.
+//      - Return type: List<Doctor>
+//      - Parameters: DayOfWeek day, LocalTime from, LocalTime to
+   default List<Doctor> findDoctorsWithSlotBetween(DayOfWeek day, LocalTime from, LocalTime to) {
+       return findDoctorsWithAvailabilityBetween(day.getValue(), from.toSecondOfDay() / 60, to.toSecondOfDay() / 60);
+   }
+
 }
\ No newline at end of file
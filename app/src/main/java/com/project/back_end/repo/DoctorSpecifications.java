@@ -0,0 +1,81 @@
+package com.project.back_end.repo;
+
+import java.util.Collection;
+import java.util.Locale;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.DoctorAvailability;
+
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+/**
+ * Composable filters of the doctor search, combined by {@link DoctorRepository} into one SQL
+ * statement. Each method returns a {@link Specification} that matches every doctor when its
+ * argument is null, so callers can chain all of them whatever filters a request carries.
+ */
+public final class DoctorSpecifications {
+
+    // Minute of noon: a morning range starts before it, an afternoon range ends after it
+    private static final int NOON_MINUTE = 12 * 60;
+
+    private DoctorSpecifications() {
+    }
+
+    // nameContains: LOWER(name) LIKE '%name%'
+    public static Specification<Doctor> nameContains(String name) {
+        if (name == null) {
+            return null;
+        }
+        String pattern = "%" + name.toLowerCase(Locale.ROOT) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern);
+    }
+
+    // idIn: doctors among the given ids (no id matches nothing), e.g. the name matches of the in-memory trigram index
+    public static Specification<Doctor> idIn(Collection<Long> ids) {
+        if (ids == null) {
+            return null;
+        }
+        return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+
+    // specialtyIs: specialty equal to the given one, ignoring case
+    public static Specification<Doctor> specialtyIs(String specialty) {
+        if (specialty == null) {
+            return null;
+        }
+        String lowered = specialty.toLowerCase(Locale.ROOT);
+        return (root, query, cb) -> cb.equal(cb.lower(root.get("specialty")), lowered);
+    }
+
+    // availableDuring: "AM" for a range starting before noon, "PM" for one ending after noon, anything else matches nothing
+    public static Specification<Doctor> availableDuring(String period) {
+        if (period == null) {
+            return null;
+        }
+        boolean morning = "AM".equalsIgnoreCase(period);
+        boolean afternoon = "PM".equalsIgnoreCase(period);
+        return (root, query, cb) -> {
+            if (!morning && !afternoon) {
+                return cb.disjunction();
+            }
+            Subquery<Long> ranges = query.subquery(Long.class);
+            Root<DoctorAvailability> range = ranges.from(DoctorAvailability.class);
+            ranges.select(range.get("id")).where(
+                    cb.equal(range.get("doctor"), root),
+                    morning ? cb.lessThan(range.get("startMinute"), NOON_MINUTE)
+                            : cb.greaterThan(range.get("endMinute"), NOON_MINUTE));
+            return cb.exists(ranges);
+        };
+    }
+
+    // idAfter: ids greater than the keyset cursor
+    public static Specification<Doctor> idAfter(Long afterId) {
+        if (afterId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), afterId);
+    }
+}
@@ -0,0 +1,30 @@
+package com.project.back_end.repo;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.project.back_end.models.TokenRevocation;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, String> {
+
+//    - **findByRevokedBeforeGreaterThanEqual**:
+//      - This method retrieves the revocation cutoffs that can still match a live token.
+//      - Return type: List<TokenRevocation>
+//      - Parameters: long since (epoch second; older cutoffs predate every unexpired token)
+    List<TokenRevocation> findByRevokedBeforeGreaterThanEqual(long since);
+
+//    - **deleteByRevokedBeforeLessThan**:
+//      - This method removes the cutoffs older than every unexpired token.
+//      - Parameters: long before (epoch second)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TokenRevocation r WHERE r.revokedBefore < :before")
+    void deleteByRevokedBeforeLessThan(@Param("before") long before);
+}
@@ -0,0 +1,45 @@
+package com.project.back_end.services;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@link AppointmentService} whenever an appointment occupies or frees a
+ * doctor's slot, or changes status. Listeners that keep in-memory views of appointments react
+ * after commit.
+ */
+public class AppointmentChangedEvent {
+
+    public enum Change {
+        BOOKED,
+        RELEASED,
+        STATUS_CHANGED
+    }
+
+    private final Change change;
+    private final Long doctorId;
+    private final Long patientId;
+    private final LocalDateTime appointmentTime;
+
+    public AppointmentChangedEvent(Change change, Long doctorId, Long patientId, LocalDateTime appointmentTime) {
+        this.change = change;
+        this.doctorId = doctorId;
+        this.patientId = patientId;
+        this.appointmentTime = appointmentTime;
+    }
+
+    public Change getChange() {
+        return change;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public LocalDateTime getAppointmentTime() {
+        return appointmentTime;
+    }
+}
@@ -2,38 +2,87 @@ package com.project.back_end.services;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.config.MetricsConfig;
 import com.project.back_end.models.Appointment;
-import com.project.back_end.models.Doctor;
 import com.project.back_end.repo.AppointmentRepository;
-import com.project.back_end.repo.DoctorRepository;
+
+import io.micrometer.core.annotation.Timed;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class AppointmentService {
 
+    public static final String SLOT_TAKEN = "Selected time slot is already booked.";
+
     private final AppointmentRepository appointmentRepository;
-    private final DoctorRepository doctorRepository;
+    private final AvailabilityRegistry availabilityRegistry;
+    private final BookingCalendar bookingCalendar;
+    private final BookingLocks bookingLocks;
+    private final SlotHolds slotHolds;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DaySheetCache daySheetCache;
 
     // Constructor Injection
     public AppointmentService(AppointmentRepository appointmentRepository,
-            DoctorRepository doctorRepository) {
+            AvailabilityRegistry availabilityRegistry, BookingCalendar bookingCalendar, BookingLocks bookingLocks,
+            SlotHolds slotHolds, PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+            DaySheetCache daySheetCache) {
         this.appointmentRepository = appointmentRepository;
-        this.doctorRepository = doctorRepository;
+        this.availabilityRegistry = availabilityRegistry;
+        this.bookingCalendar = bookingCalendar;
+        this.bookingLocks = bookingLocks;
+        this.slotHolds = slotHolds;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.daySheetCache = daySheetCache;
     }
 
     // 4. Book Appointment
-    @Transactional
-    public int bookAppointment(Appointment appointment) {
+    // Returns 1 when booked, -1 when the slot is already taken and 0 on any other failure.
+    // patientId is the authenticated patient: holds are checked and used up for that patient only
+    public int bookAppointment(Appointment appointment, Long patientId) {
+        if (appointment.getDoctor() == null || appointment.getDoctor().getId() == null
+                || appointment.getAppointmentTime() == null || patientId == null
+                || appointment.getPatient() == null || !patientId.equals(appointment.getPatient().getId())) {
+            return 0;
+        }
+        Long doctorId = appointment.getDoctor().getId();
+        LocalDateTime time = appointment.getAppointmentTime();
         try {
-            appointmentRepository.save(appointment);
-            return 1;
+            // The doctor's day stays locked until the transaction has committed and the calendar has the booking
+            return bookingLocks.withLock(doctorId, time.toLocalDate(), () -> {
+                if (slotHolds.isHeldByOther(doctorId, time, patientId)) {
+                    return -1;
+                }
+                Integer result = transactionTemplate.execute(status -> {
+                    if (isSlotBooked(doctorId, time)) {
+                        return -1;
+                    }
+                    Appointment saved = appointmentRepository.save(appointment);
+                    publish(AppointmentChangedEvent.Change.BOOKED, saved);
+                    return 1;
+                });
+                if (result == 1) {
+                    slotHolds.consume(doctorId, time, patientId); // the patient's own hold, if any, is used up
+                }
+                return result;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Booked through another instance first: rejected by the unique (doctor, slot) constraint
+            return -1;
         } catch (Exception e) {
             // Log the error if needed
             return 0;
@@ -41,89 +90,111 @@ public class AppointmentService {
     }
 
     // Update Appointment
-    @Transactional
     public String updateAppointment(Long appointmentId, Appointment updatedAppointment, Long patientId) {
-        Optional<Appointment> existingOpt = appointmentRepository.findById(appointmentId);
-        if (existingOpt.isEmpty()) {
-            return "Appointment not found.";
+        if (updatedAppointment.getDoctor() == null || updatedAppointment.getDoctor().getId() == null
+                || updatedAppointment.getAppointmentTime() == null) {
+            return "Doctor and appointment time are required.";
         }
+        Long doctorId = updatedAppointment.getDoctor().getId();
+        LocalDateTime time = updatedAppointment.getAppointmentTime();
+        try {
+            // Lock the target slot's day, as for a new booking
+            return bookingLocks.withLock(doctorId, time.toLocalDate(), () -> transactionTemplate.execute(status -> {
+                // The appointment row alone: doctor and patient stay unloaded, the owner is compared by patient_id
+                Optional<Appointment> existingOpt = appointmentRepository.findOwnedById(appointmentId);
+                if (existingOpt.isEmpty()) {
+                    return "Appointment not found.";
+                }
 
-        Appointment existing = existingOpt.get();
-        if (!existing.getPatient().getId().equals(patientId)) {
-            return "Unauthorized: Patient ID mismatch.";
-        }
+                Appointment existing = existingOpt.get();
+                if (!existing.isOwnedBy(patientId)) {
+                    return "Unauthorized: Patient ID mismatch.";
+                }
 
-        if (!isDoctorAvailable(updatedAppointment.getDoctor().getId(), updatedAppointment.getAppointmentTime())) {
-            return "Doctor is not available at the selected time.";
-        }
+                if (!isDoctorAvailable(doctorId, time)) {
+                    return "Doctor is not available at the selected time.";
+                }
 
-        existing.setAppointmentTime(updatedAppointment.getAppointmentTime());
-        existing.setDoctor(updatedAppointment.getDoctor());
-        existing.setStatus(updatedAppointment.getStatus());
+                boolean sameSlot = doctorId.equals(existing.getDoctor().getId())
+                        && time.truncatedTo(ChronoUnit.HOURS).equals(existing.getAppointmentTime().truncatedTo(ChronoUnit.HOURS));
+                if (!sameSlot && (isSlotBooked(doctorId, time) || slotHolds.isHeldByOther(doctorId, time, patientId))) {
+                    return SLOT_TAKEN;
+                }
 
-        appointmentRepository.save(existing);
-        return "Appointment updated successfully.";
-    }
+                publish(AppointmentChangedEvent.Change.RELEASED, existing);
+                existing.setAppointmentTime(time);
+                existing.setDoctor(updatedAppointment.getDoctor());
+                existing.setStatus(updatedAppointment.getStatus());
 
-    // Helper method to check doctor availability
-    private boolean isDoctorAvailable(Long doctorId, LocalDateTime appointmentTime) {
-        Optional<Doctor> doctorOpt = doctorRepository.findById(doctorId);
-        if (doctorOpt.isEmpty()) {
-            return false;
+                appointmentRepository.save(existing);
+                publish(AppointmentChangedEvent.Change.BOOKED, existing);
+                return "Appointment updated successfully.";
+            }));
+        } catch (DataIntegrityViolationException e) {
+            return SLOT_TAKEN;
         }
+    }
 
-        List<String> availableTimes = doctorOpt.get().getAvailableTimes();
-        LocalTime appointmentLocalTime = appointmentTime.toLocalTime();
-
-        for (String timeSlot : availableTimes) {
-            String[] parts = timeSlot.split("-");
-            if (parts.length != 2) {
-                continue;
-            }
+    // Hold Slot
+    // Holds a slot for the patient during checkout; null if the doctor does not offer it or it is booked or held by someone else
+    public SlotHolds.Hold holdSlot(Long patientId, Long doctorId, LocalDateTime time) {
+        if (patientId == null || doctorId == null || time == null || !isDoctorAvailable(doctorId, time)) {
+            return null;
+        }
+        return bookingLocks.withLock(doctorId, time.toLocalDate(),
+                () -> isSlotBooked(doctorId, time) ? null : slotHolds.place(patientId, doctorId, time));
+    }
 
-            try {
-                LocalTime start = LocalTime.parse(parts[0].trim());
-                LocalTime end = LocalTime.parse(parts[1].trim());
+    // Release Hold
+    public boolean releaseHold(String holdId, Long patientId) {
+        return slotHolds.release(holdId, patientId);
+    }
 
-                if (!appointmentLocalTime.isBefore(start) && !appointmentLocalTime.isAfter(end)) {
-                    return true;
-                }
-            } catch (DateTimeParseException e) {
-                // Log or handle invalid time format
-            }
-        }
+    // True when an appointment already starts in the hour slot of the given time
+    private boolean isSlotBooked(Long doctorId, LocalDateTime time) {
+        return (bookingCalendar.bookedMask(doctorId, time.toLocalDate()) & BookingCalendar.slotBit(time)) != 0;
+    }
 
-        return false;
+    // Helper method to check doctor availability against the doctor's compiled hourly slots
+    private boolean isDoctorAvailable(Long doctorId, LocalDateTime appointmentTime) {
+        CompiledAvailability availability = availabilityRegistry.find(doctorId);
+        return availability != null
+                && availability.hasSlot(appointmentTime.getDayOfWeek(), appointmentTime.getHour());
     }
 
     // Cancel Appointment
     @Transactional
     public String cancelAppointment(Long appointmentId, Long patientId) {
-        Optional<Appointment> appointmentOpt = appointmentRepository.findById(appointmentId);
+        Optional<Appointment> appointmentOpt = appointmentRepository.findOwnedById(appointmentId);
         if (appointmentOpt.isEmpty()) {
             return "Appointment not found.";
         }
 
         Appointment appointment = appointmentOpt.get();
-        if (!appointment.getPatient().getId().equals(patientId)) {
+        if (!appointment.isOwnedBy(patientId)) {
             return "Unauthorized: Patient ID mismatch.";
         }
 
         appointmentRepository.delete(appointment);
+        publish(AppointmentChangedEvent.Change.RELEASED, appointment);
         return "Appointment cancelled successfully.";
     }
 
-    // Get Appointments
-    @Transactional(readOnly = true)
-    public List<Appointment> getAppointments(Long doctorId, LocalDate date, String patientName) {
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = date.atTime(LocalTime.MAX);
+    // Listeners (e.g. the BookingCalendar) apply the change once the surrounding transaction commits
+    private void publish(AppointmentChangedEvent.Change change, Appointment appointment) {
+        Long doctorId = appointment.getDoctor() != null ? appointment.getDoctor().getId() : null;
+        Long patientId = appointment.getPatient() != null ? appointment.getPatient().getId() : null;
+        eventPublisher.publishEvent(
+                new AppointmentChangedEvent(change, doctorId, patientId, appointment.getAppointmentTime()));
+    }
 
+    // Get Appointments
+    // Served from the doctor's cached day sheet; the patient name filter runs in memory
+    public List<AppointmentDTO> getAppointments(Long doctorId, LocalDate date, String patientName) {
         if (patientName != null && !patientName.isBlank() && !"0".equals(patientName.trim())) {
-            return appointmentRepository.findByDoctorIdAndPatient_NameContainingIgnoreCaseAndAppointmentTimeBetween(
-                    doctorId, patientName, start, end);
+            return daySheetCache.sheet(doctorId, date, patientName);
         } else {
-            return appointmentRepository.findByDoctorIdAndAppointmentTimeBetween(doctorId, start, end);
+            return daySheetCache.sheet(doctorId, date);
         }
     }
 
@@ -132,6 +203,9 @@ public class AppointmentService {
     public String changeStatus(Long appointmentId, int status) {
         try {
             appointmentRepository.updateStatus(status, appointmentId);
+            // Loaded for the doctor and day whose sheet shows the status (the appointment row only, associations are lazy)
+            appointmentRepository.findById(appointmentId)
+                    .ifPresent(appointment -> publish(AppointmentChangedEvent.Change.STATUS_CHANGED, appointment));
             return "Status updated successfully.";
         } catch (Exception e) {
             return "Failed to update status.";
@@ -145,7 +219,7 @@ public class AppointmentService {
 //    - The `@Service` annotation should be added before the class declaration to mark it as a Spring service component.
 //    - Instruction: Add `@Service` above the class definition.
 // 2. **Constructor Injection for Dependencies**:
-//    - The `AppointmentService` class requires several dependencies like `AppointmentRepository`, `Service`, `TokenService`, `PatientRepository`, and `DoctorRepository`.
+//    - The `AppointmentService` class requires dependencies like `AppointmentRepository` and the `AvailabilityRegistry` holding each doctor's compiled availability.
 //    - These dependencies should be injected through the constructor.
 //    - Instruction: Ensure constructor injection is used for proper dependency management in Spring.
 // 3. **Add @Transactional Annotation for Methods that Modify Database**:
@@ -153,8 +227,15 @@ public class AppointmentService {
 //    - Instruction: Add the `@Transactional` annotation above methods that interact with the database, especially those modifying data.
 // 4. **Book Appointment Method**:
 //    - Responsible for saving the new appointment to the database.
+//    - Booking, updating and cancelling publish an `AppointmentChangedEvent` so in-memory views such as the `BookingCalendar`
+//      are updated after the transaction commits.
+//    - Booking and updating lock the doctor's day in `BookingLocks` and run their transaction inside the lock, so the slot check,
+//      the insert and the commit happen before any other booking for that doctor and day can check the slot.
+//      A slot that is already taken returns `-1`; the unique (doctor, slot) constraint catches bookings made through other instances.
 //    - If the save operation fails, it returns `0`; otherwise, it returns `1`.
 //    - Instruction: Ensure that the method handles any exceptions and returns an appropriate result code.
+//    - Booking is two-phase when the client first holds the slot (`holdSlot`): the hold hides the slot from availability for a short
+//      TTL, only the holding patient can book it, and booking consumes the hold. Holds live in memory in `SlotHolds`.
 // 5. **Update Appointment Method**:
 //    - This method is used to update an existing appointment based on its ID.
 //    - It validates whether the patient ID matches, checks if the appointment is available for updating, and ensures that the doctor is available at the specified time.
@@ -164,8 +245,12 @@ public class AppointmentService {
 //    - This method cancels an appointment by deleting it from the database.
 //    - It ensures the patient who owns the appointment is trying to cancel it and handles possible errors.
 //    - Instruction: Make sure that the method checks for the patient ID match before deleting the appointment.
+//    - Updating and cancelling load the appointment with `findOwnedById` (ownership entity graph) and check the owner with
+//      `Appointment.isOwnedBy`, which compares the patient_id foreign key without loading the patient or the doctor.
 // 7. **Get Appointments Method**:
 //    - This method retrieves a list of appointments for a specific doctor on a particular day, optionally filtered by the patient's name.
+//    - The day's appointments come from the `DaySheetCache`, loaded with one query and dropped on any booking, update,
+//      cancellation or status change for that day, so filtering by patient name happens in memory.
 //    - It uses `@Transactional` to ensure that database operations are consistent and handled in a single transaction.
 //    - Instruction: Ensure the correct use of transaction boundaries, especially when querying the database for appointments.
 // 8. **Change Status Method**:
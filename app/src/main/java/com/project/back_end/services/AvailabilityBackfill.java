@@ -0,0 +1,90 @@
+package com.project.back_end.services;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import com.project.back_end.models.DoctorAvailability;
+
+/**
+ * Migration V3: copies availability strings from the legacy {@code doctor_available_times}
+ * element-collection table into {@code doctor_availability} rows, then drops the legacy table
+ * (and with it its foreign key to {@code doctor}, which would otherwise block deleting those
+ * doctors). Doctors that already have rows are skipped. Flyway runs it once, through
+ * {@link SchemaMigrations}; on a database that never had the legacy table it does nothing.
+ */
+@Component
+public class AvailabilityBackfill extends BaseJavaMigration {
+
+    static final String LEGACY_TABLE = "doctor_available_times";
+
+    private static final String LEGACY_QUERY = "SELECT doctor_id, available_times FROM " + LEGACY_TABLE;
+    private static final String INSERT = "INSERT INTO doctor_availability (doctor_id, day_of_week, start_minute, end_minute) VALUES (?, ?, ?, ?)";
+
+    // The version is fixed here rather than parsed from the class name
+    @Override
+    protected void init() {
+    }
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("3");
+    }
+
+    @Override
+    public String getDescription() {
+        return "copy legacy doctor availability";
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        if (!tableExists(connection, LEGACY_TABLE)) {
+            return;
+        }
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+        List<Object[]> legacyRows = jdbcTemplate.query(LEGACY_QUERY, (rs, n) -> new Object[] { rs.getLong(1), rs.getString(2) });
+
+        Set<Long> migrated = new HashSet<>(
+                jdbcTemplate.queryForList("SELECT DISTINCT doctor_id FROM doctor_availability", Long.class));
+        List<Object[]> inserts = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Object[] legacy : legacyRows) {
+            Long doctorId = (Long) legacy[0];
+            if (migrated.contains(doctorId)) {
+                continue;
+            }
+            for (DoctorAvailability row : DoctorAvailability.parse(null, (String) legacy[1])) {
+                String key = doctorId + ":" + row.getDayOfWeek() + ":" + row.getStartMinute() + ":" + row.getEndMinute();
+                if (seen.add(key)) {
+                    inserts.add(new Object[] { doctorId, row.getDayOfWeek(), row.getStartMinute(), row.getEndMinute() });
+                }
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, inserts);
+        }
+        jdbcTemplate.execute("DROP TABLE " + LEGACY_TABLE);
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+        try (ResultSet rs = metaData.getTables(connection.getCatalog(), connection.getSchema(), name, new String[] { "TABLE" })) {
+            return rs.next();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.project.back_end.services;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.DoctorAvailability;
+import com.project.back_end.repo.DoctorRepository;
+
+/**
+ * Compiled availability of the doctors recently used by this process, keyed by doctor id.
+ * {@link DoctorService} registers a doctor's availability when it is saved or updated and
+ * evicts it on delete; other doctors are compiled on first use. Entries are bounded in number
+ * and expire a TTL after they were compiled, so edits made through other instances are picked
+ * up within the TTL.
+ */
+@Component
+public class AvailabilityRegistry {
+
+    private final DoctorRepository doctorRepository;
+    private final Cache<Long, CompiledAvailability> compiled;
+
+    public AvailabilityRegistry(DoctorRepository doctorRepository,
+            @Value("${availability-registry.maximum-size:10000}") long maximumSize,
+            @Value("${availability-registry.ttl:PT10M}") Duration ttl) {
+        this.doctorRepository = doctorRepository;
+        this.compiled = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // find: the doctor's compiled availability, or null if the doctor does not exist
+    public CompiledAvailability find(Long doctorId) {
+        if (doctorId == null) {
+            return null;
+        }
+        CompiledAvailability availability = compiled.getIfPresent(doctorId);
+        if (availability != null) {
+            return availability;
+        }
+        Doctor doctor = doctorRepository.findWithAvailabilityById(doctorId).orElse(null);
+        if (doctor == null) {
+            return null;
+        }
+        return register(doctorId, doctor.getAvailability());
+    }
+
+    // find: compiled availability of an already loaded doctor (with availability rows), compiling it only if not yet known
+    public CompiledAvailability find(Doctor doctor) {
+        return compiled.get(doctor.getId(), id -> CompiledAvailability.compile(doctor.getAvailability()));
+    }
+
+    public CompiledAvailability register(Long doctorId, List<DoctorAvailability> rows) {
+        CompiledAvailability availability = CompiledAvailability.compile(rows);
+        compiled.put(doctorId, availability);
+        return availability;
+    }
+
+    public void evict(Long doctorId) {
+        compiled.invalidate(doctorId);
+    }
+
+    public Cache<Long, CompiledAvailability> cache() {
+        return compiled;
+    }
+}
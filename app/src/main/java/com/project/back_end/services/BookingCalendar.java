@@ -0,0 +1,204 @@
+package com.project.back_end.services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.project.back_end.repo.AppointmentRepository;
+
+/**
+ * In-memory index of booked hourly slots per doctor and day. Bit {@code h} of a day's mask
+ * is set when an appointment starts in the hour {@code h:00}. Days are loaded lazily with one
+ * query, kept current from {@link AppointmentChangedEvent}s after commit, and bounded so cold
+ * days are evicted. Every day is reloaded at the latest {@code booking-calendar.ttl} after it was
+ * loaded, however often it is read or updated, so bookings made through another instance or
+ * directly in the database become visible within that time.
+ */
+@Component
+public class BookingCalendar {
+
+    public static final String CACHE_NAME = "booking.calendar";
+
+    public record DayKey(Long doctorId, LocalDate date) {
+    }
+
+    private final AppointmentRepository appointmentRepository;
+    private final Cache<DayKey, Integer> bookedSlots;
+
+    // Bumped on every applied change, so a bulk load that raced with a booking is not installed
+    private final AtomicLong changeCount = new AtomicLong();
+
+    public BookingCalendar(AppointmentRepository appointmentRepository,
+            @Value("${booking-calendar.maximum-days:100000}") long maximumDays,
+            @Value("${booking-calendar.ttl:PT5M}") Duration ttl) {
+        this.appointmentRepository = appointmentRepository;
+        // A TTL from the load: markBooked updates must not extend the life of a day loaded long ago
+        this.bookedSlots = Caffeine.newBuilder()
+                .maximumSize(maximumDays)
+                .expireAfter(new TtlFromLoad(ttl.toNanos()))
+                .recordStats()
+                .build();
+    }
+
+    // bookedMask: booked hourly slots of a doctor on a date, loading the day on first use
+    public int bookedMask(Long doctorId, LocalDate date) {
+        return bookedSlots.get(new DayKey(doctorId, date), this::load);
+    }
+
+    private Integer load(DayKey key) {
+        List<LocalDateTime> times = appointmentRepository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(
+                key.doctorId(), key.date().atStartOfDay(), key.date().atTime(LocalTime.MAX));
+        int mask = 0;
+        for (LocalDateTime time : times) {
+            mask |= slotBit(time);
+        }
+        return mask;
+    }
+
+    // bookedMasks: one mask per day from start to end inclusive, loading all missing days with a single query
+    public int[] bookedMasks(Long doctorId, LocalDate start, LocalDate end) {
+        int days = (int) (end.toEpochDay() - start.toEpochDay()) + 1;
+        int[] masks = new int[days];
+        boolean complete = true;
+        for (int i = 0; i < days; i++) {
+            Integer mask = bookedSlots.getIfPresent(new DayKey(doctorId, start.plusDays(i)));
+            if (mask == null) {
+                complete = false;
+                break;
+            }
+            masks[i] = mask;
+        }
+        if (complete) {
+            return masks;
+        }
+
+        long changesBefore = changeCount.get();
+        List<LocalDateTime> times = appointmentRepository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(
+                doctorId, start.atStartOfDay(), end.atTime(LocalTime.MAX));
+        masks = new int[days];
+        for (LocalDateTime time : times) {
+            masks[(int) (time.toLocalDate().toEpochDay() - start.toEpochDay())] |= slotBit(time);
+        }
+        for (int i = 0; i < days; i++) {
+            install(new DayKey(doctorId, start.plusDays(i)), masks[i], changesBefore);
+        }
+        return masks;
+    }
+
+    // bookedMasks: booked slots of several doctors on one date, loading all missing doctors with a single grouped query
+    public Map<Long, Integer> bookedMasks(Collection<Long> doctorIds, LocalDate date) {
+        Map<Long, Integer> masks = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long doctorId : doctorIds) {
+            Integer mask = bookedSlots.getIfPresent(new DayKey(doctorId, date));
+            if (mask == null) {
+                missing.add(doctorId);
+                masks.put(doctorId, 0);
+            } else {
+                masks.put(doctorId, mask);
+            }
+        }
+        if (missing.isEmpty()) {
+            return masks;
+        }
+
+        long changesBefore = changeCount.get();
+        List<Object[]> rows = appointmentRepository.findDoctorIdsAndAppointmentTimesByDoctorIdInAndAppointmentTimeBetween(
+                missing, date.atStartOfDay(), date.atTime(LocalTime.MAX));
+        for (Object[] row : rows) {
+            masks.merge((Long) row[0], slotBit((LocalDateTime) row[1]), (a, b) -> a | b);
+        }
+        for (Long doctorId : missing) {
+            install(new DayKey(doctorId, date), masks.get(doctorId), changesBefore);
+        }
+        return masks;
+    }
+
+    // install: caches a bulk-loaded mask unless the day is loaded already or any change was applied since the
+    // query started. The check runs inside the entry's compute, so a change applied after it is either seen
+    // here or finds the installed mask and updates it.
+    private void install(DayKey key, int mask, long changesBefore) {
+        bookedSlots.asMap().compute(key, (k, current) -> {
+            if (current != null) {
+                return current;
+            }
+            return changeCount.get() == changesBefore ? mask : null;
+        });
+    }
+
+    // markBooked: adds a slot to a day that is already loaded; unloaded days will read it from the database
+    public void markBooked(Long doctorId, LocalDateTime time) {
+        changeCount.incrementAndGet();
+        bookedSlots.asMap().computeIfPresent(new DayKey(doctorId, time.toLocalDate()), (key, mask) -> mask | slotBit(time));
+    }
+
+    // invalidate: another appointment may still hold the same hour, so freed slots are reloaded rather than cleared
+    public void invalidate(Long doctorId, LocalDate date) {
+        changeCount.incrementAndGet();
+        bookedSlots.invalidate(new DayKey(doctorId, date));
+    }
+
+    public void evictDoctor(Long doctorId) {
+        changeCount.incrementAndGet();
+        bookedSlots.asMap().keySet().removeIf(key -> key.doctorId().equals(doctorId));
+    }
+
+    @Order(ResourceVersions.INVALIDATION_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.getDoctorId() == null || event.getAppointmentTime() == null) {
+            return;
+        }
+        switch (event.getChange()) {
+            case BOOKED -> markBooked(event.getDoctorId(), event.getAppointmentTime());
+            case RELEASED -> invalidate(event.getDoctorId(), event.getAppointmentTime().toLocalDate());
+        }
+    }
+
+    public Cache<DayKey, Integer> cache() {
+        return bookedSlots;
+    }
+
+    public static int slotBit(LocalDateTime time) {
+        return 1 << time.getHour();
+    }
+
+    // Expires each day a fixed time after it was loaded; reads and updates keep the remaining time
+    private static final class TtlFromLoad implements Expiry<DayKey, Integer> {
+        private final long ttlNanos;
+
+        TtlFromLoad(long ttlNanos) {
+            this.ttlNanos = ttlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(DayKey key, Integer mask, long currentTime) {
+            return ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(DayKey key, Integer mask, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(DayKey key, Integer mask, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.project.back_end.services;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.project.back_end.services.BookingCalendar.DayKey;
+
+/**
+ * In-process mutual exclusion for bookings, one lock per doctor and day. A lock exists only
+ * while some thread holds or waits for it, so bookings for different doctors (or different
+ * days of the same doctor) never wait on each other and idle keys cost no memory. The unique
+ * (doctor, slot) constraint on appointments remains the guard across processes.
+ */
+@Component
+public class BookingLocks {
+
+    private static final class KeyLock {
+        final ReentrantLock lock = new ReentrantLock();
+        int users; // guarded by the map's per-key compute
+    }
+
+    private final Map<DayKey, KeyLock> locks = new ConcurrentHashMap<>();
+
+    // withLock: runs the action while holding the lock of the doctor's day
+    public <T> T withLock(Long doctorId, LocalDate date, Supplier<T> action) {
+        DayKey key = new DayKey(doctorId, date);
+        KeyLock keyLock = locks.compute(key, (k, existing) -> {
+            KeyLock held = existing != null ? existing : new KeyLock();
+            held.users++;
+            return held;
+        });
+        keyLock.lock.lock();
+        try {
+            return action.get();
+        } finally {
+            keyLock.lock.unlock();
+            locks.computeIfPresent(key, (k, held) -> --held.users == 0 ? null : held);
+        }
+    }
+
+    // Number of doctor-days currently locked or awaited
+    public int activeKeys() {
+        return locks.size();
+    }
+}
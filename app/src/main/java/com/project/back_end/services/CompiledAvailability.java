@@ -0,0 +1,109 @@
+package com.project.back_end.services;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.project.back_end.models.DoctorAvailability;
+
+/**
+ * A doctor's weekly availability compiled into one bitmask per day of week, where bit
+ * {@code h} means the one-hour slot starting at {@code h:00} is offered. Built once from the
+ * doctor's {@link DoctorAvailability} rows when a doctor is saved or updated, so availability
+ * checks are bit tests instead of range comparisons. Instances are immutable.
+ */
+public final class CompiledAvailability {
+
+    public static final int SLOTS_PER_DAY = 24;
+
+    private static final int NOON_MINUTE = 12 * 60;
+
+    private static final String[] SLOT_LABELS = new String[SLOTS_PER_DAY];
+
+    static {
+        for (int hour = 0; hour < SLOTS_PER_DAY; hour++) {
+            SLOT_LABELS[hour] = LocalTime.of(hour, 0).toString(); // e.g. "09:00"
+        }
+    }
+
+    public static final CompiledAvailability EMPTY = new CompiledAvailability(new int[7], false, false);
+
+    private final int[] dayMasks;
+    private final boolean morning;
+    private final boolean afternoon;
+
+    private CompiledAvailability(int[] dayMasks, boolean morning, boolean afternoon) {
+        this.dayMasks = dayMasks;
+        this.morning = morning;
+        this.afternoon = afternoon;
+    }
+
+    // compile: one mask per day of week from the doctor's availability rows
+    public static CompiledAvailability compile(List<DoctorAvailability> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return EMPTY;
+        }
+        int[] dayMasks = new int[7];
+        boolean morning = false;
+        boolean afternoon = false;
+        for (DoctorAvailability row : rows) {
+            dayMasks[row.getDayOfWeek() - 1] |= hourSlots(row.getStartMinute(), row.getEndMinute());
+            morning |= row.getStartMinute() < NOON_MINUTE;
+            afternoon |= row.getEndMinute() > NOON_MINUTE;
+        }
+        return new CompiledAvailability(dayMasks, morning, afternoon);
+    }
+
+    // Whole hour slots [h:00, h+1:00) that fit inside [startMinute, endMinute)
+    static int hourSlots(int startMinute, int endMinute) {
+        int first = (startMinute + 59) / 60;
+        int last = Math.min(endMinute / 60, SLOTS_PER_DAY);
+        int mask = 0;
+        for (int hour = first; hour < last; hour++) {
+            mask |= 1 << hour;
+        }
+        return mask;
+    }
+
+    public int slotMask(DayOfWeek day) {
+        return dayMasks[day.getValue() - 1];
+    }
+
+    public boolean hasSlot(DayOfWeek day, int hour) {
+        return (slotMask(day) & (1 << hour)) != 0;
+    }
+
+    public boolean isEmpty() {
+        for (int mask : dayMasks) {
+            if (mask != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // "AM" matches a range starting before noon, "PM" a range ending after noon
+    public boolean isAvailableDuring(String period) {
+        if ("AM".equalsIgnoreCase(period)) {
+            return morning;
+        }
+        if ("PM".equalsIgnoreCase(period)) {
+            return afternoon;
+        }
+        return false;
+    }
+
+    // Slot start labels ("09:00", "10:00", ...) for the bits set in a mask, in time order
+    public static List<String> toSlotLabels(int mask) {
+        if (mask == 0) {
+            return Collections.emptyList();
+        }
+        List<String> labels = new ArrayList<>(Integer.bitCount(mask));
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            labels.add(SLOT_LABELS[Integer.numberOfTrailingZeros(bits)]);
+        }
+        return labels;
+    }
+}
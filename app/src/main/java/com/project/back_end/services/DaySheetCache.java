@@ -0,0 +1,93 @@
+package com.project.back_end.services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.services.BookingCalendar.DayKey;
+
+/**
+ * Cached day sheets for the doctor dashboard: the {@link AppointmentDTO}s of one doctor on
+ * one date, loaded with one query and filtered by patient name in memory, so typing in the
+ * dashboard's search box costs no database round trip. A sheet is dropped after any booking,
+ * update, cancellation or status change on that day ({@link AppointmentChangedEvent}) and
+ * after any change to the doctor; the TTL bounds staleness from writes made by other
+ * instances.
+ */
+@Component
+public class DaySheetCache {
+
+    public static final String CACHE_NAME = "appointments.day-sheets";
+
+    private final AppointmentRepository appointmentRepository;
+    private final Cache<DayKey, List<AppointmentDTO>> sheets;
+
+    public DaySheetCache(AppointmentRepository appointmentRepository,
+            @Value("${day-sheets.maximum-days:10000}") long maximumDays,
+            @Value("${day-sheets.ttl:PT5M}") Duration ttl) {
+        this.appointmentRepository = appointmentRepository;
+        this.sheets = Caffeine.newBuilder()
+                .maximumSize(maximumDays)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // sheet: every appointment of the doctor on the date, loading the day on first use
+    public List<AppointmentDTO> sheet(Long doctorId, LocalDate date) {
+        return sheets.get(new DayKey(doctorId, date), this::load);
+    }
+
+    // sheet filtered to the patients whose name contains the given text, ignoring case
+    public List<AppointmentDTO> sheet(Long doctorId, LocalDate date, String patientName) {
+        String needle = patientName.trim().toLowerCase(Locale.ROOT);
+        return sheet(doctorId, date).stream()
+                .filter(appointment -> appointment.getPatientName() != null
+                        && appointment.getPatientName().toLowerCase(Locale.ROOT).contains(needle))
+                .collect(Collectors.toList());
+    }
+
+    private List<AppointmentDTO> load(DayKey key) {
+        return List.copyOf(appointmentRepository.findAppointmentDTOsByDoctorIdAndAppointmentTimeBetween(
+                key.doctorId(), key.date().atStartOfDay(), key.date().atTime(LocalTime.MAX)));
+    }
+
+    public void invalidate(Long doctorId, LocalDate date) {
+        sheets.invalidate(new DayKey(doctorId, date));
+    }
+
+    public void evictDoctor(Long doctorId) {
+        sheets.asMap().keySet().removeIf(key -> key.doctorId().equals(doctorId));
+    }
+
+    @Order(ResourceVersions.INVALIDATION_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.getDoctorId() != null && event.getAppointmentTime() != null) {
+            invalidate(event.getDoctorId(), event.getAppointmentTime().toLocalDate());
+        }
+    }
+
+    // Sheets carry the doctor's name, and a deleted doctor's appointments are gone
+    @Order(ResourceVersions.INVALIDATION_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        evictDoctor(event.getDoctorId());
+    }
+
+    public Cache<DayKey, List<AppointmentDTO>> cache() {
+        return sheets;
+    }
+}
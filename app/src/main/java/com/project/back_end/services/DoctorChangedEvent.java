@@ -0,0 +1,18 @@
+package com.project.back_end.services;
+
+/**
+ * Published by {@link DoctorService} whenever a doctor is saved, updated or deleted. Listeners
+ * that keep in-memory views of doctors react after commit.
+ */
+public class DoctorChangedEvent {
+
+    private final Long doctorId;
+
+    public DoctorChangedEvent(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+}
@@ -0,0 +1,224 @@
+package com.project.back_end.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.project.back_end.DTO.DoctorDTO;
+import com.project.back_end.DTO.DoctorPage;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+
+/**
+ * In-memory read model of every doctor for the filter endpoint. A snapshot holds each doctor's
+ * {@link DoctorDTO} and compiled availability in id order, plus a specialty index, a name
+ * {@link TrigramIndex} and AM/PM bitmaps, all as bitsets over the snapshot positions; a search
+ * ANDs the bitsets of its filters and walks the result from the cursor. The name index also
+ * serves doctor-name lookups elsewhere, which then query by id instead of {@code LIKE '%name%'}.
+ * Snapshots are immutable and replaced whole: after a doctor is saved, updated or deleted
+ * ({@link DoctorChangedEvent}), and when older than the refresh interval, to pick up changes
+ * written by other processes.
+ */
+@Component
+public class DoctorDirectory {
+
+    // Most ids a name lookup hands out; beyond this an IN list costs more than the LIKE scan it replaces
+    public static final int MAX_NAME_IDS = 1000;
+
+    private static final class Snapshot {
+        final long[] ids;
+        final DoctorDTO[] doctors;
+        final CompiledAvailability[] availability;
+        final TrigramIndex names;
+        final Map<String, BitSet> bySpecialty = new HashMap<>();
+        final BitSet morning = new BitSet();
+        final BitSet afternoon = new BitSet();
+        final long builtAtMillis = System.currentTimeMillis();
+
+        Snapshot(List<Doctor> sorted) {
+            int size = sorted.size();
+            ids = new long[size];
+            doctors = new DoctorDTO[size];
+            availability = new CompiledAvailability[size];
+            for (int i = 0; i < size; i++) {
+                Doctor doctor = sorted.get(i);
+                ids[i] = doctor.getId();
+                doctors[i] = new DoctorDTO(doctor.getId(), doctor.getName(), doctor.getEmail());
+                availability[i] = CompiledAvailability.compile(doctor.getAvailability());
+                if (doctor.getSpecialty() != null) {
+                    bySpecialty.computeIfAbsent(lower(doctor.getSpecialty()), k -> new BitSet()).set(i);
+                }
+                morning.set(i, availability[i].isAvailableDuring("AM"));
+                afternoon.set(i, availability[i].isAvailableDuring("PM"));
+            }
+            names = new TrigramIndex(sorted.stream().map(Doctor::getName).collect(Collectors.toList()));
+        }
+    }
+
+    private final DoctorRepository doctorRepository;
+    private final boolean enabled;
+    private final long refreshMillis;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    public DoctorDirectory(DoctorRepository doctorRepository,
+            @Value("${doctor.directory.enabled:true}") boolean enabled,
+            @Value("${doctor.directory.refresh:PT5M}") Duration refresh) {
+        this.doctorRepository = doctorRepository;
+        this.enabled = enabled;
+        this.refreshMillis = refresh.toMillis();
+    }
+
+    // Whether searches should be served from the directory rather than the database
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Order(ResourceVersions.INVALIDATION_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            System.err.println("Error rebuilding doctor directory: " + e.getMessage());
+        }
+    }
+
+    // rebuild: replaces the snapshot with one built from every doctor and their availability (one query)
+    public synchronized void rebuild() {
+        List<Doctor> doctors = new ArrayList<>(doctorRepository.findAll());
+        doctors.sort(Comparator.comparing(Doctor::getId));
+        snapshot = new Snapshot(doctors);
+    }
+
+    // search: one keyset page of the doctors matching every given filter (null or blank filters match all), in id order
+    public DoctorPage<DoctorDTO> search(String name, String specialty, String period, Long afterId, Integer size) {
+        int pageSize = DoctorService.pageSize(size);
+        boolean morning = "AM".equalsIgnoreCase(period);
+        boolean afternoon = "PM".equalsIgnoreCase(period);
+        if (period != null && !morning && !afternoon) {
+            return new DoctorPage<>(Collections.emptyList(), null); // Unknown period matches no doctor
+        }
+
+        Snapshot current = current();
+        BitSet candidates = null;
+        if (!isBlank(specialty)) {
+            candidates = and(candidates, current.bySpecialty.get(lower(specialty.trim())));
+        }
+        if (morning) {
+            candidates = and(candidates, current.morning);
+        }
+        if (afternoon) {
+            candidates = and(candidates, current.afternoon);
+        }
+        if (!isBlank(name)) {
+            candidates = and(candidates, current.names.matching(name.trim()));
+        }
+        if (candidates == null) {
+            candidates = new BitSet();
+            candidates.set(0, current.ids.length);
+        }
+
+        List<DoctorDTO> page = new ArrayList<>();
+        Long nextCursor = null;
+        for (int i = candidates.nextSetBit(firstAfter(current.ids, afterId)); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (page.size() == pageSize) {
+                nextCursor = page.get(pageSize - 1).getId();
+                break;
+            }
+            page.add(current.doctors[i]);
+        }
+        return new DoctorPage<>(page, nextCursor);
+    }
+
+    // idsWithNameContaining: ids of the doctors whose name contains the text (ignoring case), in id order.
+    // Null when the directory is disabled or more than MAX_NAME_IDS doctors match: the caller then searches with LIKE.
+    public List<Long> idsWithNameContaining(String name) {
+        if (!enabled) {
+            return null;
+        }
+        Snapshot current = current();
+        BitSet matches = current.names.matching(name == null ? "" : name.trim());
+        if (matches.cardinality() > MAX_NAME_IDS) {
+            return null;
+        }
+        List<Long> ids = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            ids.add(current.ids[i]);
+        }
+        return ids;
+    }
+
+    // The snapshot to read: built on first use, and rebuilt by one reader once stale while the others keep the previous one
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    rebuild();
+                }
+                return snapshot;
+            }
+        }
+        if (System.currentTimeMillis() - current.builtAtMillis >= refreshMillis && refreshing.compareAndSet(false, true)) {
+            try {
+                rebuild();
+                return snapshot;
+            } finally {
+                refreshing.set(false);
+            }
+        }
+        return current;
+    }
+
+    // Intersects a running result (null = no filter yet) with a filter's bitset (null = matches nothing); never modifies the snapshot
+    private static BitSet and(BitSet result, BitSet filter) {
+        if (filter == null) {
+            return new BitSet();
+        }
+        if (result == null) {
+            return (BitSet) filter.clone();
+        }
+        result.and(filter);
+        return result;
+    }
+
+    // Position of the first id greater than afterId
+    private static int firstAfter(long[] ids, Long afterId) {
+        if (afterId == null) {
+            return 0;
+        }
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ids[mid] <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String lower(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String text) {
+        return text == null || text.isBlank();
+    }
+}
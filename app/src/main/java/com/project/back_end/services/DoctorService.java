@@ -1,98 +1,132 @@
 package com.project.back_end.services;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeParseException;
-import java.time.temporal.ChronoUnit;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.project.back_end.models.Appointment;
+import com.project.back_end.DTO.DoctorAvailabilityDTO;
+import com.project.back_end.DTO.DoctorPage;
+import com.project.back_end.DTO.TokenPrincipal;
+import com.project.back_end.config.MetricsConfig;
 import com.project.back_end.models.Doctor;
 import com.project.back_end.repo.AppointmentRepository;
 import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.DoctorSpecifications;
+
+import io.micrometer.core.annotation.Timed;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class DoctorService {
 
     private final AppointmentRepository appointmentRepository;
     private final TokenService tokenService;
     private final DoctorRepository doctorRepository;
+    private final PrincipalCache principalCache;
+    private final AvailabilityRegistry availabilityRegistry;
+    private final BookingCalendar bookingCalendar;
+    private final SlotHolds slotHolds;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DoctorDirectory doctorDirectory;
 
     public DoctorService(AppointmentRepository appointmentRepository, TokenService tokenService,
-            DoctorRepository doctorRepository) {
+            DoctorRepository doctorRepository, PrincipalCache principalCache,
+            AvailabilityRegistry availabilityRegistry, BookingCalendar bookingCalendar, SlotHolds slotHolds,
+            ApplicationEventPublisher eventPublisher, DoctorDirectory doctorDirectory) {
         this.appointmentRepository = appointmentRepository;
         this.tokenService = tokenService;
         this.doctorRepository = doctorRepository;
+        this.principalCache = principalCache;
+        this.availabilityRegistry = availabilityRegistry;
+        this.bookingCalendar = bookingCalendar;
+        this.slotHolds = slotHolds;
+        this.eventPublisher = eventPublisher;
+        this.doctorDirectory = doctorDirectory;
     }
 
+    // Page sizes of the doctor listing: used when none is requested, and the most a client may request
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Returned by getFreeSlotMask when the doctor does not exist (no real mask has bits above 23 set)
+    public static final int NO_SUCH_DOCTOR = -1;
+
     public List<String> getDoctorAvailability(Long doctorId, LocalDate date) {
-        Optional<Doctor> doctorOpt = doctorRepository.findById(doctorId);
-        if (doctorOpt.isEmpty()) {
+        int freeSlots = getFreeSlotMask(doctorId, date);
+        if (freeSlots == NO_SUCH_DOCTOR) {
             return Collections.emptyList();
         }
+        return CompiledAvailability.toSlotLabels(freeSlots);
+    }
 
-        Doctor doctor = doctorOpt.get();
-        List<String> availableSlots = doctor.getAvailableTimes();
-        if (availableSlots == null || availableSlots.isEmpty()) {
-            return Collections.emptyList();
+    // getFreeSlotMask: bit h is set when the doctor offers the hour starting at h:00 on that date and it is neither booked nor held
+    public int getFreeSlotMask(Long doctorId, LocalDate date) {
+        CompiledAvailability availability = availabilityRegistry.find(doctorId);
+        if (availability == null) {
+            return NO_SUCH_DOCTOR;
+        }
+        int offered = availability.slotMask(date.getDayOfWeek());
+        if (offered == 0) {
+            return 0;
         }
 
-        // 1. Fetch all booked appointments for the day.
-        List<Appointment> bookedAppointments = appointmentRepository
-                .findByDoctorIdAndAppointmentTimeBetween(doctorId, date.atStartOfDay(), date.atTime(LocalTime.MAX));
+        // Booked appointments block the one-hour slot they start in (e.g., 09:30 blocks 09:00)
+        int booked = bookingCalendar.bookedMask(doctorId, date);
+        return offered & ~booked & ~slotHolds.heldMask(doctorId, date);
+    }
 
-        // 2. Extract the hour component of all booked appointments into an efficient Set.
-        // This allows for O(1) average time complexity lookups later.
-        Set<LocalTime> bookedHours = bookedAppointments.stream()
-                .map(Appointment::getAppointmentTime)
-                .map(LocalDateTime::toLocalTime)
-                // Truncate the time (e.g., 09:30 -> 09:00) to match the one-hour slot granularity
-                .map(time -> time.truncatedTo(ChronoUnit.HOURS))
-                .collect(Collectors.toSet());
+    // getDoctorAvailability for every day from start to end inclusive: one doctor load and at most one appointment query
+    public Map<LocalDate, List<String>> getDoctorAvailability(Long doctorId, LocalDate start, LocalDate end) {
+        CompiledAvailability availability = availabilityRegistry.find(doctorId);
+        if (availability == null || end.isBefore(start)) {
+            return Collections.emptyMap();
+        }
 
-        // 3. Process the doctor's general availability strings (e.g., "09:00-11:00")
-        // and flatten them into a single list of individual one-hour LocalTime blocks.
-        List<LocalTime> allPossibleSlots = availableSlots.stream()
-                // flatMap transforms each slot string into a stream of LocalTime blocks,
-                // then flattens all these individual streams into one continuous stream.
-                .flatMap(slot -> {
-                    String[] parts = slot.split("-");
-                    if (parts.length != 2) {
-                        return Stream.empty(); // Ignore invalid format strings
-                    }
-                    try {
-                        LocalTime start = LocalTime.parse(parts[0].trim());
-                        LocalTime end = LocalTime.parse(parts[1].trim());
-
-                        // Stream.iterate generates a sequence of times starting at 'start',
-                        // advancing by 1 hour, and stops after generating 'limit' number of elements.
-                        long hoursBetween = ChronoUnit.HOURS.between(start, end);
-                        return Stream.iterate(start, current -> current.plusHours(1))
-                                .limit(hoursBetween);
-                    } catch (DateTimeParseException ignored) {
-                        return Stream.empty(); // Ignore unparsable time strings
-                    }
-                })
-                // Collect all generated LocalTime objects into a list.
-                .collect(Collectors.toList());
+        int[] booked = bookingCalendar.bookedMasks(doctorId, start, end);
+        Map<LocalDate, List<String>> availableByDay = new LinkedHashMap<>();
+        for (int i = 0; i < booked.length; i++) {
+            LocalDate date = start.plusDays(i);
+            int offered = availability.slotMask(date.getDayOfWeek());
+            int free = offered & ~booked[i] & ~slotHolds.heldMask(doctorId, date);
+            availableByDay.put(date, CompiledAvailability.toSlotLabels(free));
+        }
+        return availableByDay;
+    }
 
-        // 4. Filter the generated slots: Keep only the ones that are NOT in the bookedHours Set.
-        // Map the remaining LocalTime objects back to String format (e.g., "09:00").
-        List<String> available = allPossibleSlots.stream()
-                .filter(slotTime -> !bookedHours.contains(slotTime))
-                .map(LocalTime::toString)
-                .collect(Collectors.toList());
+    // getSpecialtyAvailability: free slots on a date of every doctor with the specialty, from one doctor query and one grouped appointment query
+    public List<DoctorAvailabilityDTO> getSpecialtyAvailability(String specialty, LocalDate date) {
+        List<Doctor> doctors = doctorRepository.findBySpecialtyIgnoreCase(specialty);
+        if (doctors.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-        return available;
+        List<Long> doctorIds = doctors.stream().map(Doctor::getId).collect(Collectors.toList());
+        Map<Long, Integer> booked = bookingCalendar.bookedMasks(doctorIds, date);
+
+        // Evaluated per doctor in parallel; the stream keeps the repository's order
+        return doctors.parallelStream()
+                .map(doctor -> {
+                    int offered = availabilityRegistry.find(doctor).slotMask(date.getDayOfWeek());
+                    int free = offered & ~booked.getOrDefault(doctor.getId(), 0) & ~slotHolds.heldMask(doctor.getId(), date);
+                    return new DoctorAvailabilityDTO(doctor.getId(), doctor.getName(), doctor.getSpecialty(),
+                            CompiledAvailability.toSlotLabels(free));
+                })
+                .collect(Collectors.toList());
     }
 
     // 5. saveDoctor
@@ -101,7 +135,10 @@ public class DoctorService {
             if (doctorRepository.findByEmail(doctor.getEmail()) == null) {
                 return -1;
             }
-            doctorRepository.save(doctor);
+            Doctor saved = doctorRepository.save(doctor);
+            availabilityRegistry.register(saved.getId(), saved.getAvailability());
+            principalCache.evictDoctor(doctor.getEmail());
+            eventPublisher.publishEvent(new DoctorChangedEvent(saved.getId()));
             return 1;
         } catch (Exception e) {
             return 0;
@@ -110,30 +147,89 @@ public class DoctorService {
 
     // 6. updateDoctor
     public int updateDoctor(Long doctorId, Doctor updatedDoctor) {
-        Optional<Doctor> existingOpt = doctorRepository.findById(doctorId);
+        // Loaded with its availability rows so only the changed rows are written
+        Optional<Doctor> existingOpt = doctorRepository.findWithAvailabilityById(doctorId);
         if (existingOpt.isEmpty()) {
             return -1;
         }
 
         Doctor existing = existingOpt.get();
+        String previousEmail = existing.getEmail();
+        boolean credentialsChanged = !Objects.equals(existing.getEmail(), updatedDoctor.getEmail())
+                || !Objects.equals(existing.getPassword(), updatedDoctor.getPassword());
         existing.setName(updatedDoctor.getName());
         existing.setEmail(updatedDoctor.getEmail());
         existing.setPassword(updatedDoctor.getPassword());
         existing.setSpecialty(updatedDoctor.getSpecialty());
         existing.setAvailableTimes(updatedDoctor.getAvailableTimes());
 
-        doctorRepository.save(existing);
+        Doctor saved = doctorRepository.save(existing);
+        availabilityRegistry.register(doctorId, saved.getAvailability());
+        principalCache.evictDoctor(previousEmail);
+        principalCache.evictDoctor(existing.getEmail());
+        if (credentialsChanged) {
+            tokenService.revokeTokens("doctor", doctorId);
+        }
+        eventPublisher.publishEvent(new DoctorChangedEvent(doctorId));
         return 1;
     }
 
-    // 7. getDoctors
+    // 7. findDoctorPage: one keyset page of doctors matching the optional filters, in id order.
+    // Costs two statements (the page of doctors, then the availability of all of them) whatever the page size.
     @Transactional(readOnly = true)
-    public List<Doctor> getDoctors() {
-        List<Doctor> doctors = doctorRepository.findAll();
-        doctors.forEach(d -> d.getAvailableTimes().size()); // Force eager loading
+    public DoctorPage<Doctor> findDoctorPage(String name, String specialty, String period, Long afterId, Integer size) {
+        int pageSize = pageSize(size);
+        Specification<Doctor> spec = searchSpecification(name, specialty, period).and(DoctorSpecifications.idAfter(afterId));
+
+        // One extra doctor tells whether another page follows
+        List<Doctor> doctors = searchDoctors(spec, Sort.by("id"), pageSize + 1);
+        Long nextCursor = null;
+        if (doctors.size() > pageSize) {
+            doctors = doctors.subList(0, pageSize);
+            nextCursor = doctors.get(pageSize - 1).getId();
+        }
+        return new DoctorPage<>(doctors, nextCursor);
+    }
+
+    // searchDoctors: doctors matching every given filter (null or blank filters match all) in one SQL statement,
+    // optionally sorted and limited; the availability of a limited result is then loaded in one batch
+    @Transactional(readOnly = true)
+    public List<Doctor> searchDoctors(String name, String specialty, String period, Sort sort, Integer limit) {
+        return searchDoctors(searchSpecification(name, specialty, period), sort, limit);
+    }
+
+    private List<Doctor> searchDoctors(Specification<Doctor> spec, Sort sort, Integer limit) {
+        Sort order = sort == null ? Sort.unsorted() : sort;
+        if (limit == null) {
+            return doctorRepository.findAll(spec, order); // Availability is fetched in the same query
+        }
+        // A fetch join would make Hibernate apply the limit in memory, so availability is initialized afterwards (batched)
+        List<Doctor> doctors = doctorRepository.findBy(spec, query -> query.sortBy(order).limit(limit).all());
+        doctors.forEach(doctor -> Hibernate.initialize(doctor.getAvailability()));
         return doctors;
     }
 
+    // The search filters as one specification; a name is resolved to ids by the directory's trigram index when it can answer
+    private Specification<Doctor> searchSpecification(String name, String specialty, String period) {
+        Specification<Doctor> spec = Specification.where(DoctorSpecifications.specialtyIs(blankToNull(specialty)))
+                .and(DoctorSpecifications.availableDuring(blankToNull(period)));
+        String trimmedName = blankToNull(name);
+        if (trimmedName != null) {
+            List<Long> ids = doctorDirectory.idsWithNameContaining(trimmedName);
+            spec = spec.and(ids == null ? DoctorSpecifications.nameContains(trimmedName) : DoctorSpecifications.idIn(ids));
+        }
+        return spec;
+    }
+
+    // Requested page size, defaulted and capped
+    public static int pageSize(Integer size) {
+        return size == null || size < 1 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
     // 8. deleteDoctor
     @Transactional
     public int deleteDoctor(Long doctorId) {
@@ -144,6 +240,11 @@ public class DoctorService {
 
         appointmentRepository.deleteAllByDoctorId(doctorId);
         doctorRepository.deleteById(doctorId);
+        availabilityRegistry.evict(doctorId);
+        bookingCalendar.evictDoctor(doctorId);
+        principalCache.evictDoctor(doctorOpt.get().getEmail());
+        tokenService.revokeTokens("doctor", doctorId);
+        eventPublisher.publishEvent(new DoctorChangedEvent(doctorId));
         return 1;
     }
 
@@ -159,87 +260,82 @@ public class DoctorService {
             return "Invalid password.";
         }
 
-        return tokenService.generateToken(doctor.getId(), doctor.getEmail());
+        return tokenService.generateToken(doctor.getId(), doctor.getEmail(), "doctor");
     }
 
     // 10. findDoctorByName
     @Transactional(readOnly = true)
     public List<Doctor> findDoctorByName(String name) {
-        List<Doctor> doctors = doctorRepository.findByNameLike(name);
-        doctors.forEach(d -> d.getAvailableTimes().size());
-        return doctors;
+        return searchDoctors(name, null, null, null, null); // Availability is fetched in the same query
     }
 
     // 11. filterDoctorsByNameSpecilityandTime
     public List<Doctor> filterDoctorsByNameSpecilityandTime(String name, String specialty, String period) {
-        List<Doctor> doctors = doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(name, specialty);
-        return filterDoctorByTime(doctors, period);
+        return searchDoctors(name, specialty, period, null, null);
     }
 
     // 12. filterDoctorByTime
     public List<Doctor> filterDoctorByTime(List<Doctor> doctors, String period) {
         return doctors.stream()
-                .filter(d -> isAvailableDuringPeriod(d.getAvailableTimes(), period))
+                .filter(d -> isAvailableDuringPeriod(d, period))
                 .collect(Collectors.toList());
     }
 
-    // Helper: Check if any slot matches AM/PM
-    private boolean isAvailableDuringPeriod(List<String> slots, String period) {
-        for (String slot : slots) {
-            String[] parts = slot.split("-");
-            if (parts.length != 2) {
-                continue;
-            }
-            try {
-                LocalTime start = LocalTime.parse(parts[0].trim());
-                LocalTime end = LocalTime.parse(parts[1].trim());
-                if ("AM".equalsIgnoreCase(period) && start.isBefore(LocalTime.NOON)) {
-                    return true;
-                }
-                if ("PM".equalsIgnoreCase(period) && end.isAfter(LocalTime.NOON)) {
-                    return true;
-                }
-            } catch (DateTimeParseException ignored) {
-            }
-        }
-        return false;
+    // Helper: Check if any slot matches AM/PM, compiling from the doctor's already loaded availability rows
+    private boolean isAvailableDuringPeriod(Doctor doctor, String period) {
+        return availabilityRegistry.find(doctor).isAvailableDuring(period);
     }
 
     // 13. filterDoctorByNameAndTime
     public List<Doctor> filterDoctorByNameAndTime(String name, String period) {
-        List<Doctor> doctors = doctorRepository.findByNameLike(name);
-        return filterDoctorByTime(doctors, period);
+        return searchDoctors(name, null, period, null, null);
     }
 
     // 14. filterDoctorByNameAndSpecility
     public List<Doctor> filterDoctorByNameAndSpecility(String name, String specialty) {
-        return doctorRepository.findByNameContainingIgnoreCaseAndSpecialtyIgnoreCase(name, specialty);
+        return searchDoctors(name, specialty, null, null, null);
     }
 
     // 15. filterDoctorByTimeAndSpecility
     public List<Doctor> filterDoctorByTimeAndSpecility(String specialty, String period) {
-        List<Doctor> doctors = doctorRepository.findBySpecialtyIgnoreCase(specialty);
-        return filterDoctorByTime(doctors, period);
+        return searchDoctors(null, specialty, period, null, null);
     }
 
     // 16. filterDoctorBySpecility
     public List<Doctor> filterDoctorBySpecility(String specialty) {
-        return doctorRepository.findBySpecialtyIgnoreCase(specialty);
+        return searchDoctors(null, specialty, null, null, null);
     }
 
     // 17. filterDoctorsByTime
     public List<Doctor> filterDoctorsByTime(String period) {
-        List<Doctor> doctors = doctorRepository.findAll();
-        return filterDoctorByTime(doctors, period);
+        return searchDoctors(null, null, period, null, null);
+    }
+
+    // 18. findDoctorsFreeAt: doctors offering the hour slot containing `time` with no appointment or active hold in it,
+    // from one indexed availability query
+    @Transactional(readOnly = true)
+    public List<Doctor> findDoctorsFreeAt(LocalDateTime time) {
+        int slot = BookingCalendar.slotBit(time);
+        return doctorRepository.findDoctorsFreeAt(time).stream()
+                .filter(doctor -> (slotHolds.heldMask(doctor.getId(), time.toLocalDate()) & slot) == 0)
+                .collect(Collectors.toList());
     }
 
-    // getDoctorDetails
-    public Doctor getDoctorDetails(String token) {
+    // 19. findDoctorsWithSlotBetween: doctors offering at least one hour between `from` and `to` on a day of week
+    @Transactional(readOnly = true)
+    public List<Doctor> findDoctorsWithSlotBetween(DayOfWeek day, LocalTime from, LocalTime to) {
+        return doctorRepository.findDoctorsWithSlotBetween(day, from, to);
+    }
+
+    // getDoctorDetails: the authenticated doctor's row, from the principal cache when the token's email still belongs to its id
+    public Doctor getDoctorDetails(TokenPrincipal principal) {
         try {
-            String email = tokenService.extractEmail(token);
-            Doctor doctor = doctorRepository.findByEmail(email);
+            Doctor doctor = principalCache.findDoctorByEmail(principal.getEmail());
+            if (doctor == null || !doctor.getId().equals(principal.getId())) {
+                doctor = doctorRepository.findById(principal.getId()).orElse(null);
+            }
             if (doctor == null) {
-                throw new RuntimeException("Doctor not found for email: " + email);
+                throw new RuntimeException("Doctor not found for id: " + principal.getId());
             } else {
                 return doctor;
             }
@@ -259,16 +355,18 @@ public class DoctorService {
 //    - The `@Service` annotation marks this class as a Spring-managed bean for business logic.
 //    - Instruction: Add `@Service` above the class declaration.
 // 2. **Constructor Injection for Dependencies**:
-//    - The `DoctorService` class depends on `DoctorRepository`, `AppointmentRepository`, and `TokenService`.
+//    - The `DoctorService` class depends on `DoctorRepository`, `AppointmentRepository`, `TokenService` and `PrincipalCache`.
 //    - These dependencies should be injected via the constructor for proper dependency management.
 //    - Instruction: Ensure constructor injection is used for injecting dependencies into the service.
 // 3. **Add @Transactional Annotation for Methods that Modify or Fetch Database Data**:
-//    - Methods like `getDoctorAvailability`, `getDoctors`, `findDoctorByName`, `filterDoctorsBy*` should be annotated with `@Transactional`.
+//    - Methods like `getDoctorAvailability`, `findDoctorPage`, `findDoctorByName`, `filterDoctorsBy*` should be annotated with `@Transactional`.
 //    - The `@Transactional` annotation ensures that database operations are consistent and wrapped in a single transaction.
 //    - Instruction: Add the `@Transactional` annotation above the methods that perform database operations or queries.
 // 4. **getDoctorAvailability Method**:
 //    - Retrieves the available time slots for a specific doctor on a particular date and filters out already booked slots.
-//    - The method fetches all appointments for the doctor on the given date and calculates the availability by comparing against booked slots.
+//    - The doctor's "HH:mm-HH:mm" strings are compiled once (on save/update, or on first use) into an hourly bitmask per day
+//      by the `AvailabilityRegistry`; booked slots come from the in-memory `BookingCalendar`, slots held during checkout from
+//      `SlotHolds`, and the free slots are `offered & ~booked & ~held`.
 //    - Instruction: Ensure that the time slots are properly formatted and the available slots are correctly filtered.
 //public List<String> oldImplgetDoctorAvailability(Long doctorId, LocalDate date) {
 /*      Optional<Doctor> doctorOpt = doctorRepository.findById(doctorId);
@@ -315,19 +413,28 @@ public class DoctorService {
 
         return available;
     } */
+//    - `getSpecialtyAvailability` returns the free slots of every doctor of a specialty on one date, from one doctor query
+//      and one grouped appointment query, evaluating each doctor in parallel.
+//    - The range variant returns the free slots of every day between two dates, built from one appointment scan over the whole range.
 // 5. **saveDoctor Method**:
 //    - Used to save a new doctor record in the database after checking if a doctor with the same email already exists.
 //    - If a doctor with the same email is found, it returns `-1` to indicate conflict; `1` for success, and `0` for internal errors.
 //    - Instruction: Ensure that the method correctly handles conflicts and exceptions when saving a doctor.
 // 6. **updateDoctor Method**:
 //    - Updates an existing doctor's details in the database. If the doctor doesn't exist, it returns `-1`.
+//    - The doctor's cached principal is evicted under both the previous and the new email.
+//    - When the email or password changes, tokens issued to the doctor before the update are revoked.
 //    - Instruction: Make sure that the doctor exists before attempting to save the updated record and handle any errors properly.
-// 7. **getDoctors Method**:
-//    - Fetches all doctors from the database. It is marked with `@Transactional` to ensure that the collection is properly loaded.
-//    - Instruction: Ensure that the collection is eagerly loaded, especially if dealing with lazy-loaded relationships (e.g., available times). 
+// 7. **findDoctorPage Method**:
+//    - `findDoctorPage` serves the paginated listing: keyset pagination over doctor id with optional name, specialty and AM/PM filters,
+//      a page size capped at `MAX_PAGE_SIZE` and a `nextCursor` for the following page.
+//    - `searchDoctors` is the single search path behind the listing and every filter method below: `DoctorSpecifications`
+//      composes the name, specialty and AM/PM filters into one SQL statement, with an optional sort and limit.
 // 8. **deleteDoctor Method**:
 //    - Deletes a doctor from the system along with all appointments associated with that doctor.
 //    - It first checks if the doctor exists. If not, it returns `-1`; otherwise, it deletes the doctor and their appointments.
+//    - Tokens already issued to the deleted doctor are revoked so they stop authorizing requests.
+//    - Saving, updating and deleting publish a `DoctorChangedEvent`, on which the `DoctorDirectory` rebuilds after commit.
 //    - Instruction: Ensure the doctor and their appointments are deleted properly, with error handling for internal issues.
 // 9. **validateDoctor Method**:
 //    - Validates a doctor's login by checking if the email and password match an existing doctor record.
@@ -337,17 +444,19 @@ public class DoctorService {
 //    - Finds doctors based on partial name matching and returns the list of doctors with their available times.
 //    - This method is annotated with `@Transactional` to ensure that the database query and data retrieval are properly managed within a transaction.
 //    - Instruction: Ensure that available times are eagerly loaded for the doctors.
+//    - The matching ids come from the `DoctorDirectory` trigram index, so the database is queried by primary key instead of
+//      scanning every name with `LIKE '%name%'`; the `LIKE` query remains the fallback when the index cannot answer.
 // 11. **filterDoctorsByNameSpecilityandTime Method**:
 //    - Filters doctors based on their name, specialty, and availability during a specific time (AM/PM).
-//    - The method fetches doctors matching the name and specialty criteria, then filters them based on their availability during the specified time period.
+//    - The name, specialty and time period criteria are applied together in one query through `searchDoctors`.
 //    - Instruction: Ensure proper filtering based on both the name and specialty as well as the specified time period.
 // 12. **filterDoctorByTime Method**:
 //    - Filters a list of doctors based on whether their available times match the specified time period (AM/PM).
-//    - This method processes a list of doctors and their available times to return those that fit the time criteria.
+//    - This method checks each doctor's compiled availability, which records whether any range starts before or ends after noon.
 //    - Instruction: Ensure that the time filtering logic correctly handles both AM and PM time slots and edge cases.
 // 13. **filterDoctorByNameAndTime Method**:
 //    - Filters doctors based on their name and the specified time period (AM/PM).
-//    - Fetches doctors based on partial name matching and filters the results to include only those available during the specified time period.
+//    - Fetches doctors matching the name and available during the specified time period in one query through `searchDoctors`.
 //    - Instruction: Ensure that the method correctly filters doctors based on the given name and time of day (AM/PM).
 // 14. **filterDoctorByNameAndSpecility Method**:
 //    - Filters doctors by name and specialty.
@@ -355,7 +464,7 @@ public class DoctorService {
 //    - Instruction: Ensure that both name and specialty are considered when filtering doctors.
 // 15. **filterDoctorByTimeAndSpecility Method**:
 //    - Filters doctors based on their specialty and availability during a specific time period (AM/PM).
-//    - Fetches doctors based on the specified specialty and filters them based on their available time slots for AM/PM.
+//    - Fetches doctors with the specified specialty and an AM/PM availability range in one query through `searchDoctors`.
 //    - Instruction: Ensure the time filtering is accurately applied based on the given specialty and time period (AM/PM).
 // 16. **filterDoctorBySpecility Method**:
 //    - Filters doctors based on their specialty.
@@ -365,3 +474,10 @@ public class DoctorService {
 //    - Filters all doctors based on their availability during a specific time period (AM/PM).
 //    - The method checks all doctors' available times and returns those available during the specified time period.
 //    - Instruction: Ensure proper filtering logic to handle AM/PM time periods.
+// 18. **findDoctorsFreeAt Method**:
+//    - Finds the doctors who can be booked for the one-hour slot containing the given time.
+//    - The repository matches availability rows through the (day_of_week, start_minute, end_minute) index and excludes
+//      doctors with an appointment in the slot; doctors whose slot is under an active hold are then dropped.
+// 19. **findDoctorsWithSlotBetween Method**:
+//    - Finds the doctors whose availability on a day of week overlaps the given time range by at least an hour.
+//    - Served by the same availability index, without loading every doctor's availability.
@@ -2,16 +2,18 @@ package com.project.back_end.services;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.format.DateTimeParseException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 
 import com.project.back_end.DTO.AppointmentDTO;
+import com.project.back_end.DTO.DoctorDTO;
+import com.project.back_end.DTO.DoctorPage;
 import com.project.back_end.models.Admin;
 import com.project.back_end.models.Doctor;
 import com.project.back_end.models.Patient;
@@ -29,15 +31,20 @@ public class MainService {
     private final PatientRepository patientRepository;
     private final DoctorService doctorService;
     private final PatientService patientService;
+    private final PrincipalCache principalCache;
+    private final DoctorDirectory doctorDirectory;
 
     public MainService(TokenService tokenService, AdminRepository adminRepository, DoctorRepository doctorRepository,
-            PatientRepository patientRepository, DoctorService doctorService, PatientService patientService) {
+            PatientRepository patientRepository, DoctorService doctorService, PatientService patientService,
+            PrincipalCache principalCache, DoctorDirectory doctorDirectory) {
         this.tokenService = tokenService;
         this.adminRepository = adminRepository;
         this.doctorRepository = doctorRepository;
         this.patientRepository = patientRepository;
         this.doctorService = doctorService;
         this.patientService = patientService;
+        this.principalCache = principalCache;
+        this.doctorDirectory = doctorDirectory;
     }
 
     // validateToken
@@ -68,7 +75,7 @@ public class MainService {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid password.");
             }
 
-            String token = tokenService.generateToken(admin.getId(), admin.getUsername());
+            String token = tokenService.generateToken(admin.getId(), admin.getUsername(), "admin");
             return ResponseEntity.ok(token);
 
         } catch (Exception e) {
@@ -77,42 +84,32 @@ public class MainService {
         }
     }
 
-    // filterDoctor
+    // filterDoctor: every combination of the three filters is one composed query; null filters match all doctors
     public List<Doctor> filterDoctor(String name, String specialty, String timePeriod) {
-        if (name != null && specialty != null && timePeriod != null) {
-            return doctorService.filterDoctorsByNameSpecilityandTime(name, specialty, timePeriod);
-        } else if (name != null && specialty != null) {
-            return doctorService.filterDoctorByNameAndSpecility(name, specialty);
-        } else if (name != null && timePeriod != null) {
-            return doctorService.filterDoctorByNameAndTime(name, timePeriod);
-        } else if (specialty != null && timePeriod != null) {
-            return doctorService.filterDoctorByTimeAndSpecility(specialty, timePeriod);
-        } else if (name != null) {
-            return doctorService.findDoctorByName(name);
-        } else if (specialty != null) {
-            return doctorService.filterDoctorBySpecility(specialty);
-        } else if (timePeriod != null) {
-            return doctorService.filterDoctorsByTime(timePeriod);
-        } else {
-            return doctorService.getDoctors();
+        return doctorService.searchDoctors(name, specialty, timePeriod, null, null);
+    }
+
+    // filterDoctor, one keyset page at a time: `afterId` is the previous page's nextCursor (null for the first page)
+    public DoctorPage<DoctorDTO> filterDoctor(String name, String specialty, String timePeriod, Long afterId, Integer size) {
+        if (doctorDirectory.isEnabled()) {
+            return doctorDirectory.search(name, specialty, timePeriod, afterId, size);
         }
+        DoctorPage<Doctor> page = doctorService.findDoctorPage(name, specialty, timePeriod, afterId, size);
+        List<DoctorDTO> doctors = page.getDoctors().stream()
+                .map(doc -> new DoctorDTO(doc.getId(), doc.getName(), doc.getEmail()))
+                .collect(Collectors.toList());
+        return new DoctorPage<>(doctors, page.getNextCursor());
     }
 
-        // validateAppointment
+    // validateAppointment
     public int validateAppointment(Long doctorId, LocalDate date, LocalTime requestedTime) {
-        Optional<Doctor> doctorOpt = doctorRepository.findById(doctorId);
-        if (doctorOpt.isEmpty()) return -1;
-
-        List<String> availableSlots = doctorService.getDoctorAvailability(doctorId, date);
-        for (String slot : availableSlots) {
-            try {
-                LocalTime slotTime = LocalTime.parse(slot);
-                if (slotTime.equals(requestedTime)) {
-                    return 1;
-                }
-            } catch (DateTimeParseException ignored) {}
-        }
-        return 0;
+        int freeSlots = doctorService.getFreeSlotMask(doctorId, date);
+        if (freeSlots == DoctorService.NO_SUCH_DOCTOR) return -1;
+
+        // Slots start on the hour, so only an exact hour can match a free slot
+        boolean onTheHour = requestedTime.getMinute() == 0 && requestedTime.getSecond() == 0
+                && requestedTime.getNano() == 0;
+        return onTheHour && (freeSlots & (1 << requestedTime.getHour())) != 0 ? 1 : 0;
     }
 
     // validatePatient
@@ -135,7 +132,7 @@ public class MainService {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid password.");
             }
 
-            String token = tokenService.generateToken(patient.getId(), patient.getEmail());
+            String token = tokenService.generateToken(patient.getId(), patient.getEmail(), "patient");
             return ResponseEntity.ok(token);
 
         } catch (Exception e) {
@@ -148,11 +145,20 @@ public class MainService {
     public List<AppointmentDTO> filterPatient(String token, String condition, String doctorName) {
         try {
             String email = tokenService.extractEmail(token);
-            Optional<Patient> patientOpt = Optional.of(patientRepository.findByEmail(email));
+            Optional<Patient> patientOpt = Optional.ofNullable(principalCache.findPatientByEmail(email));
             if (patientOpt.isEmpty()) return Collections.emptyList();
 
-            Long patientId = patientOpt.get().getId();
+            return filterPatient(patientOpt.get().getId(), condition, doctorName);
 
+        } catch (Exception e) {
+            System.err.println("Error filtering patient appointments: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    // filterPatient for a patient already identified by an authenticated token
+    public List<AppointmentDTO> filterPatient(Long patientId, String condition, String doctorName) {
+        try {
             if (condition != null && doctorName != null) {
                 return patientService.filterByDoctorAndCondition(doctorName, patientId, condition);
             } else if (condition != null) {
@@ -168,16 +174,6 @@ public class MainService {
             return Collections.emptyList();
         }
     }
-
-    public Long extractIdFromToken(String token) {
-        String email = tokenService.extractEmail(token);
-        Optional<Patient> patientOpt = Optional.of(patientRepository.findByEmail(email));
-        if (patientOpt.isEmpty()){
-            return null;
-        }
-        Long patientId = patientOpt.get().getId();
-        return patientId;
-    }
 }
 
 // 1. **@Service Annotation**
@@ -201,14 +197,18 @@ public class MainService {
 // This method ensures that only valid admin users can access secured parts of the system.
 // 5. **filterDoctor Method**
 // This method provides filtering functionality for doctors based on name, specialty, and available time slots.
-// - It supports various combinations of the three filters.
+// - It supports various combinations of the three filters, composed into a single SQL statement by `DoctorService.searchDoctors`.
 // - If none of the filters are provided, it returns all available doctors.
 // This flexible filtering mechanism allows the frontend or consumers of the API to search and narrow down doctors based on user criteria.
+// - The paginated overload returns one keyset page (ordered by doctor id) plus the cursor of the next page, so responses stay bounded.
+// - It is answered from the in-memory `DoctorDirectory` by intersecting its specialty, name and AM/PM indexes, or from
+//   the database when `doctor.directory.enabled` is false.
 // 6. **validateAppointment Method**
 // This method validates if the requested appointment time for a doctor is available.
-// - It first checks if the doctor exists in the repository.
-// - Then, it retrieves the list of available time slots for the doctor on the specified date.
-// - It compares the requested appointment time with the start times of these slots.
+// - It first checks if the doctor exists (through the doctor's compiled availability).
+// - Then, it retrieves the bitmask of free hourly slots for the doctor on the specified date, answered from memory
+//   by the compiled availability and the `BookingCalendar`.
+// - It checks the bit of the requested appointment time against that mask.
 // - If a match is found, it returns 1 (valid appointment time).
 // - If no matching time slot is found, it returns 0 (invalid).
 // - If the doctor doesn’t exist, it returns -1.
@@ -228,7 +228,7 @@ public class MainService {
 // This method ensures only legitimate patients can log in and access their data securely.
 // 9. **filterPatient Method**
 // This method filters a patient's appointment history based on condition and doctor name.
-// - It extracts the email from the JWT token to identify the patient.
+// - It extracts the email from the JWT token to identify the patient, or takes the patient ID of an already authenticated principal.
 // - Depending on which filters (condition, doctor name) are provided, it delegates the filtering logic to PatientService.
 // - If no filters are provided, it retrieves all appointments for the patient.
 // This flexible method supports patient-specific querying and enhances user experience on the client side.
@@ -2,33 +2,40 @@ package com.project.back_end.services;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.project.back_end.DTO.AppointmentDTO;
-import com.project.back_end.models.Appointment;
+import com.project.back_end.DTO.TokenPrincipal;
+import com.project.back_end.config.MetricsConfig;
 import com.project.back_end.models.Patient;
 import com.project.back_end.repo.AppointmentRepository;
 import com.project.back_end.repo.PatientRepository;
 
+import io.micrometer.core.annotation.Timed;
+
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class PatientService {
     private final AppointmentRepository appointmentRepository;
-    private final TokenService tokenService;
     private final PatientRepository patientRepository;
-    public PatientService(AppointmentRepository appointmentRepository, TokenService tokenService,
-            PatientRepository patientRepository) {
+    private final PrincipalCache principalCache;
+    private final DoctorDirectory doctorDirectory;
+    public PatientService(AppointmentRepository appointmentRepository, PatientRepository patientRepository, PrincipalCache principalCache, DoctorDirectory doctorDirectory) {
         this.appointmentRepository = appointmentRepository;
-        this.tokenService = tokenService;
         this.patientRepository = patientRepository;
+        this.principalCache = principalCache;
+        this.doctorDirectory = doctorDirectory;
     }
 
     // createPatient
     public int createPatient(Patient patient) {
         try {
             patientRepository.save(patient);
+            principalCache.evictPatient(patient.getEmail());
             return 1;
         } catch (Exception e) {
             System.err.println("Error creating patient: " + e.getMessage());
@@ -40,16 +47,22 @@ public class PatientService {
     @Transactional(readOnly = true)
     public List<AppointmentDTO> getPatientAppointment(Long patientId) {
         try {
-            List<Appointment> appointments = appointmentRepository.findByPatientId(patientId);
-            return appointments.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            return appointmentRepository.findAppointmentDTOsByPatientId(patientId);
         } catch (Exception e) {
             System.err.println("Error retrieving appointments: " + e.getMessage());
             return Collections.emptyList();
         }
     }
 
+    // streamPatientAppointments: hands every appointment of the patient to the consumer one at a time, in time order,
+    // without building a list; the consumer runs inside the read transaction
+    @Transactional(readOnly = true)
+    public void streamPatientAppointments(Long patientId, Consumer<AppointmentDTO> consumer) {
+        try (Stream<AppointmentDTO> appointments = appointmentRepository.streamAppointmentDTOsByPatientId(patientId)) {
+            appointments.forEach(consumer);
+        }
+    }
+
     // filterByCondition
     public List<AppointmentDTO> filterByCondition(Long patientId, String condition) {
         try {
@@ -62,12 +75,7 @@ public class PatientService {
                 throw new IllegalArgumentException("Invalid condition: " + condition);
             }
 
-            List<Appointment> appointments = appointmentRepository
-                    .findByPatient_IdAndStatusOrderByAppointmentTimeAsc(patientId, status);
-
-            return appointments.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            return appointmentRepository.findAppointmentDTOsByPatientIdAndStatus(patientId, status);
 
         } catch (IllegalArgumentException e) {
             System.err.println("Error filtering appointments by condition: " + e.getMessage());
@@ -81,12 +89,14 @@ public class PatientService {
     // filterByDoctor
     public List<AppointmentDTO> filterByDoctor(String doctorName, Long patientId) {
         try {
-            List<Appointment> appointments = appointmentRepository
-                    .filterByDoctorNameAndPatientId(doctorName, patientId);
-
-            return appointments.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            // Doctors matching the name come from the in-memory name index when it can answer
+            List<Long> doctorIds = doctorDirectory.idsWithNameContaining(doctorName);
+            if (doctorIds == null) {
+                return appointmentRepository.findAppointmentDTOsByDoctorNameAndPatientId(doctorName, patientId);
+            } else if (doctorIds.isEmpty()) {
+                return Collections.emptyList();
+            }
+            return appointmentRepository.findAppointmentDTOsByDoctorIdsAndPatientId(doctorIds, patientId);
 
         } catch (Exception e) {
             System.err.println("Error filtering appointments by doctor: " + e.getMessage());
@@ -106,12 +116,13 @@ public class PatientService {
                 throw new IllegalArgumentException("Invalid condition: " + condition);
             }
 
-            List<Appointment> appointments = appointmentRepository
-                    .filterByDoctorNameAndPatientIdAndStatus(doctorName, patientId, status);
-
-            return appointments.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            List<Long> doctorIds = doctorDirectory.idsWithNameContaining(doctorName);
+            if (doctorIds == null) {
+                return appointmentRepository.findAppointmentDTOsByDoctorNameAndPatientIdAndStatus(doctorName, patientId, status);
+            } else if (doctorIds.isEmpty()) {
+                return Collections.emptyList();
+            }
+            return appointmentRepository.findAppointmentDTOsByDoctorIdsAndPatientIdAndStatus(doctorIds, patientId, status);
 
         } catch (IllegalArgumentException e) {
             System.err.println("Error filtering appointments by doctor and condition: " + e.getMessage());
@@ -123,13 +134,15 @@ public class PatientService {
 
     }
 
-    // getPatientDetails
-    public Patient getPatientDetails(String token) {
+    // getPatientDetails: the authenticated patient's row, from the principal cache when the token's email still belongs to its id
+    public Patient getPatientDetails(TokenPrincipal principal) {
         try {
-            String email = tokenService.extractEmail(token);
-            Patient patient = patientRepository.findByEmail(email);
+            Patient patient = principalCache.findPatientByEmail(principal.getEmail());
+            if (patient == null || !patient.getId().equals(principal.getId())) {
+                patient = patientRepository.findById(principal.getId()).orElse(null);
+            }
             if (patient == null)
-                throw new RuntimeException("Patient not found for email: " + email);
+                throw new RuntimeException("Patient not found for id: " + principal.getId());
             else
                 return patient;
         } catch (RuntimeException e) {
@@ -140,23 +153,6 @@ public class PatientService {
             return null;
         }
     }
-
-    // Use of DTOs
-    private AppointmentDTO convertToDTO(Appointment appointment) {
-    AppointmentDTO dto = new AppointmentDTO(
-        appointment.getId(),
-        appointment.getDoctor().getId(),
-        appointment.getDoctor().getName(),
-        appointment.getPatient().getId(),
-        appointment.getPatient().getName(),
-        appointment.getPatient().getEmail(),
-        appointment.getPatient().getPhone(),
-        appointment.getPatient().getAddress(),
-        appointment.getAppointmentTime(),
-        appointment.getStatus()
-    );
-    return dto;
-}
 }
 
 // 1. **Add @Service Annotation**:
@@ -165,7 +161,7 @@ public class PatientService {
 //    - Instruction: Ensure that the `@Service` annotation is applied above the class declaration.
 
 // 2. **Constructor Injection for Dependencies**:
-//    - The `PatientService` class has dependencies on `PatientRepository`, `AppointmentRepository`, and `TokenService`.
+//    - The `PatientService` class has dependencies on `PatientRepository`, `AppointmentRepository`, `PrincipalCache` and `DoctorDirectory`.
 //    - These dependencies are injected via the constructor to maintain good practices of dependency injection and testing.
 //    - Instruction: Ensure constructor injection is used for all the required dependencies.
 
@@ -179,6 +175,8 @@ public class PatientService {
 //    - The appointments are then converted into `AppointmentDTO` objects for easier consumption by the API client.
 //    - This method is marked as `@Transactional` to ensure database consistency during the transaction.
 //    - Instruction: Ensure that appointment data is properly converted into DTOs and the method handles errors gracefully.
+//    - `streamPatientAppointments` serves the streamed variant: rows come from a `Stream` with a driver fetch size, so long
+//      histories are written out without being held in memory.
 
 // 5. **filterByCondition Method**:
 //    - Filters appointments for a patient based on the condition (e.g., "past" or "future").
@@ -190,6 +188,8 @@ public class PatientService {
 //    - Filters appointments for a patient based on the doctor's name.
 //    - It retrieves appointments where the doctor’s name matches the given value, and the patient ID matches the provided ID.
 //    - Instruction: Ensure that the method correctly filters by doctor's name and patient ID and handles any errors or invalid cases.
+//    - The doctors matching the name are resolved by the `DoctorDirectory` trigram index, so the query filters by doctor ids
+//      instead of `LIKE '%name%'`; it falls back to `LIKE` when the directory is disabled or the name matches too many doctors.
 
 // 7. **filterByDoctorAndCondition Method**:
 //    - Filters appointments based on both the doctor's name and the condition (past or future) for a specific patient.
@@ -198,8 +198,10 @@ public class PatientService {
 //    - Instruction: Ensure that the filter handles both doctor name and condition properly, and catches errors for invalid input.
 
 // 8. **getPatientDetails Method**:
-//    - Retrieves patient details using the `tokenService` to extract the patient's email from the provided token.
-//    - Once the email is extracted, it fetches the corresponding patient from the `patientRepository`.
+//    - Retrieves the details of the patient identified by the `TokenPrincipal` the `AuthenticationInterceptor` resolved,
+//      so the token is not parsed again.
+//    - The row comes from the `PrincipalCache` by email and is used only if its id is the principal's; otherwise it is
+//      read by the principal's id.
 //    - It returns the patient's information in the response body.
     //    - Instruction: Make sure that the token extraction process works correctly and patient details are fetched properly based on the extracted email.
 
@@ -209,5 +211,7 @@ public class PatientService {
 
 // 10. **Use of DTOs (Data Transfer Objects)**:
 //    - The service uses `AppointmentDTO` to transfer appointment-related data between layers. This ensures that sensitive or unnecessary data (e.g., password or private patient information) is not exposed in the response.
+//    - The DTOs are selected straight from the database by the `AppointmentRepository` projection queries
+//      (`SELECT new ...AppointmentDTO(...)`), so no `Appointment`, `Doctor` or `Patient` entity is loaded to build them.
 //    - Instruction: Ensure that DTOs are used appropriately to limit the exposure of internal data and only send the relevant fields to the client.
 
@@ -0,0 +1,45 @@
+package com.project.back_end.services;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import com.project.back_end.models.Prescription;
+
+/**
+ * Creates the {@code appointmentId} index of the prescriptions collection at startup (a no-op once
+ * it exists) and checks that MongoDB lists it, so {@code findByAppointmentId} never scans the
+ * collection. Index creation failures are reported but do not stop the application.
+ */
+@Component
+@ConditionalOnProperty(name = "prescriptions.ensure-indexes", havingValue = "true", matchIfMissing = true)
+public class PrescriptionIndexes implements ApplicationRunner {
+
+    static final String APPOINTMENT_INDEX = "idx_prescription_appointment";
+
+    private final MongoTemplate mongoTemplate;
+
+    public PrescriptionIndexes(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            IndexOperations indexes = mongoTemplate.indexOps(Prescription.class);
+            indexes.ensureIndex(new Index().on("appointmentId", Sort.Direction.ASC).named(APPOINTMENT_INDEX));
+            boolean present = indexes.getIndexInfo().stream()
+                    .anyMatch(index -> APPOINTMENT_INDEX.equals(index.getName()));
+            if (!present) {
+                System.err.println("Missing index " + APPOINTMENT_INDEX + " on prescriptions");
+            }
+        } catch (Exception e) {
+            System.err.println("Error creating prescription indexes: " + e.getMessage());
+        }
+    }
+}
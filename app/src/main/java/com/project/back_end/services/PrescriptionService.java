@@ -7,10 +7,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import com.project.back_end.config.MetricsConfig;
 import com.project.back_end.models.Prescription;
 import com.project.back_end.repo.PrescriptionRepository;
 
+import io.micrometer.core.annotation.Timed;
+
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class PrescriptionService {
     
     private final PrescriptionRepository prescriptionRepository;
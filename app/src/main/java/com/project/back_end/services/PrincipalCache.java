@@ -0,0 +1,104 @@
+package com.project.back_end.services;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.project.back_end.models.Admin;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AdminRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+
+/**
+ * In-process cache of the doctor, patient and admin rows that tokens resolve to, keyed by
+ * email (username for admins). Entries are bounded in number, expire after a TTL and are
+ * evicted by the services that write those rows. Unknown emails are never cached.
+ */
+@Component
+public class PrincipalCache {
+
+    public static final String DOCTORS = "principals.doctors";
+    public static final String PATIENTS = "principals.patients";
+    public static final String ADMINS = "principals.admins";
+
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+    private final AdminRepository adminRepository;
+
+    private final Cache<String, Doctor> doctors;
+    private final Cache<String, Patient> patients;
+    private final Cache<String, Admin> admins;
+
+    public PrincipalCache(DoctorRepository doctorRepository, PatientRepository patientRepository,
+            AdminRepository adminRepository,
+            @Value("${principal-cache.maximum-size:10000}") long maximumSize,
+            @Value("${principal-cache.ttl:PT10M}") Duration ttl) {
+        this.doctorRepository = doctorRepository;
+        this.patientRepository = patientRepository;
+        this.adminRepository = adminRepository;
+        this.doctors = newCache(maximumSize, ttl);
+        this.patients = newCache(maximumSize, ttl);
+        this.admins = newCache(maximumSize, ttl);
+    }
+
+    private static <V> Cache<String, V> newCache(long maximumSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // findDoctorByEmail
+    public Doctor findDoctorByEmail(String email) {
+        return email == null ? null : doctors.get(email, doctorRepository::findByEmail);
+    }
+
+    // findPatientByEmail
+    public Patient findPatientByEmail(String email) {
+        return email == null ? null : patients.get(email, patientRepository::findByEmail);
+    }
+
+    // findAdminByUsername
+    public Admin findAdminByUsername(String username) {
+        return username == null ? null : admins.get(username, adminRepository::findByUsername);
+    }
+
+    public void evictDoctor(String email) {
+        if (email != null) {
+            doctors.invalidate(email);
+        }
+    }
+
+    public void evictPatient(String email) {
+        if (email != null) {
+            patients.invalidate(email);
+        }
+    }
+
+    public void evictAdmin(String username) {
+        if (username != null) {
+            admins.invalidate(username);
+        }
+    }
+
+    // Hit/miss/eviction counters per cache, keyed by cache name
+    public Map<String, CacheStats> stats() {
+        return Map.of(
+                DOCTORS, doctors.stats(),
+                PATIENTS, patients.stats(),
+                ADMINS, admins.stats());
+    }
+
+    // Underlying caches, for metrics binders
+    public Map<String, Cache<String, ?>> caches() {
+        return Map.of(DOCTORS, doctors, PATIENTS, patients, ADMINS, admins);
+    }
+}
@@ -0,0 +1,131 @@
+package com.project.back_end.services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.project.back_end.services.BookingCalendar.DayKey;
+
+/**
+ * Version counters of the data behind the GET endpoints, turned into ETags so conditional
+ * requests are answered with 304 Not Modified from memory. Versions move after commit on every
+ * doctor change (the whole doctor list), appointment change (its doctor's day, its date and its
+ * patient) and, for availability, with the slots currently held. Every version is a fresh value
+ * of one counter; versions of keys evicted from the bounded maps are folded into a floor that
+ * unknown keys report, so a version never goes back to a value some client may hold.
+ * <p>
+ * Changes written by other instances are not seen here, so every ETag also carries the current
+ * time window and the instance's random epoch: a validator stays valid for at most one window.
+ */
+@Component
+public class ResourceVersions {
+
+    // Cache listeners run at this order or earlier, so versions move only once cached data is current
+    public static final int INVALIDATION_ORDER = 0;
+
+    private final SlotHolds slotHolds;
+    private final long windowMillis;
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong floor = new AtomicLong();
+    private volatile long doctorsVersion;
+    private final Cache<DayKey, Long> dayVersions;
+    private final Cache<LocalDate, Long> dateVersions;
+    private final Cache<Long, Long> patientVersions;
+
+    public ResourceVersions(SlotHolds slotHolds,
+            @Value("${resource-versions.maximum-keys:100000}") long maximumKeys,
+            @Value("${resource-versions.window:PT5M}") Duration window) {
+        this.slotHolds = slotHolds;
+        this.windowMillis = Math.max(1, window.toMillis());
+        this.dayVersions = newVersionMap(maximumKeys);
+        this.dateVersions = newVersionMap(maximumKeys);
+        this.patientVersions = newVersionMap(maximumKeys);
+    }
+
+    private <K> Cache<K, Long> newVersionMap(long maximumKeys) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .evictionListener((K key, Long version, RemovalCause cause) ->
+                        floor.accumulateAndGet(version, Math::max)) // synchronous, before the key reads as unknown
+                .build();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorChanged(DoctorChangedEvent event) {
+        doctorsVersion = clock.incrementAndGet();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.getDoctorId() != null && event.getAppointmentTime() != null) {
+            LocalDate date = event.getAppointmentTime().toLocalDate();
+            dayVersions.put(new DayKey(event.getDoctorId(), date), clock.incrementAndGet());
+            dateVersions.put(date, clock.incrementAndGet());
+        }
+        if (event.getPatientId() != null) {
+            patientVersions.put(event.getPatientId(), clock.incrementAndGet());
+        }
+    }
+
+    // doctorsETag: every doctor listing and doctor detail
+    public String doctorsETag() {
+        return eTag(doctorsVersion);
+    }
+
+    // availabilityETag: free slots of a doctor on each day from start to end inclusive
+    public String availabilityETag(Long doctorId, LocalDate start, LocalDate end) {
+        long hash = mix(0, doctorsVersion);
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            hash = mix(hash, version(dayVersions, new DayKey(doctorId, date)));
+            hash = mix(hash, slotHolds.heldMask(doctorId, date));
+        }
+        return eTag(hash);
+    }
+
+    // specialtyAvailabilityETag: free slots of many doctors on a date
+    public String specialtyAvailabilityETag(LocalDate date) {
+        return eTag(mix(mix(doctorsVersion, version(dateVersions, date)), slotHolds.version()));
+    }
+
+    // daySheetETag: a doctor's appointments on a date
+    public String daySheetETag(Long doctorId, LocalDate date) {
+        return eTag(mix(doctorsVersion, version(dayVersions, new DayKey(doctorId, date))));
+    }
+
+    // patientETag: a patient's details and appointments (which show doctor names)
+    public String patientETag(Long patientId) {
+        return eTag(mix(doctorsVersion, version(patientVersions, patientId)));
+    }
+
+    private <K> long version(Cache<K, Long> versions, K key) {
+        Long version = versions.getIfPresent(key);
+        return version != null ? version : floor.get();
+    }
+
+    private String eTag(long version) {
+        long window = System.currentTimeMillis() / windowMillis;
+        return "\"" + Long.toHexString(mix(mix(epoch, window), version)) + "\"";
+    }
+
+    // 64-bit mixing step (splitmix64 finalizer over the running hash and the next part)
+    private static long mix(long hash, long part) {
+        long z = hash * 31 + part + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,115 @@
+package com.project.back_end.services;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the versioned migrations of {@code db/migration/{vendor}} and checks that the indexes of
+ * the hot repository queries exist.
+ * <p>
+ * Hibernate ({@code spring.jpa.hibernate.ddl-auto}) still owns the tables, so the migrations only
+ * add indexes, fix data and drop unmapped legacy tables (the Java migration
+ * {@link AvailabilityBackfill}). Spring Boot would run Flyway before the EntityManagerFactory, when
+ * the tables of a new database do not exist yet; as the {@link FlywayMigrationStrategy} this class
+ * defers the migration until the application has started instead, and runs first among the
+ * application runners.
+ * <p>
+ * Startup window: the embedded Tomcat accepts requests as soon as the context is refreshed, before
+ * the runners have finished. Requests served in that window see the tables Hibernate created but
+ * possibly not yet the indexes or the backfilled {@code slot_start} values: hot queries may scan
+ * their tables, and appointments booked before {@code slot_start} existed are not yet covered by
+ * the unique (doctor_id, slot_start) constraint. Deploy behind a readiness check, or migrate
+ * before routing traffic to a new instance.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SchemaMigrations implements FlywayMigrationStrategy, ApplicationRunner {
+
+    // Indexes created by V1__hot_query_indexes, per table
+    static final Map<String, List<String>> EXPECTED_INDEXES = Map.of(
+            "appointment", List.of("idx_appointment_doctor_time", "idx_appointment_patient_status_time"),
+            "doctor", List.of("idx_doctor_email"),
+            "patient", List.of("idx_patient_email", "idx_patient_phone"),
+            "admin", List.of("idx_admin_username"));
+
+    private final DataSource dataSource;
+    private volatile Flyway flyway;
+
+    public SchemaMigrations(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // Called by Spring Boot before JPA starts: only remembers Flyway for run()
+    @Override
+    public void migrate(Flyway flyway) {
+        this.flyway = flyway;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (flyway != null) {
+            try {
+                flyway.migrate();
+            } catch (FlywayException e) {
+                // A failed migration stops the startup: the schema would not match what the queries expect
+                System.err.println("Error applying schema migrations: " + e.getMessage());
+                throw e;
+            }
+        }
+        verifyIndexes();
+    }
+
+    // verifyIndexes: reports every expected index the database does not list
+    void verifyIndexes() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            EXPECTED_INDEXES.forEach((table, indexes) -> {
+                Set<String> present = indexesOf(connection, metaData, table);
+                for (String index : indexes) {
+                    if (!present.contains(index)) {
+                        System.err.println("Missing index " + index + " on " + table
+                                + ": its repository queries will scan the table");
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            System.err.println("Error verifying indexes: " + e.getMessage());
+        }
+    }
+
+    private static Set<String> indexesOf(Connection connection, DatabaseMetaData metaData, String table) {
+        Set<String> names = new HashSet<>();
+        try {
+            String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+            try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), name, false, true)) {
+                while (rs.next()) {
+                    String index = rs.getString("INDEX_NAME");
+                    if (index != null) {
+                        names.add(index.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading indexes of " + table + ": " + e.getMessage());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,219 @@
+package com.project.back_end.services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.project.back_end.services.BookingCalendar.DayKey;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory lease table of slots held by patients during checkout. A hold reserves one hourly
+ * slot of a doctor for a short TTL; availability hides held slots and only the holder can book
+ * them. Each patient has at most one hold, so placing a new one releases the previous one.
+ * Expired holds are ignored on read and removed by a hashed timing wheel turned by a single
+ * scheduler thread, so expiry costs O(1) per hold instead of a periodic scan of the table.
+ * Callers serialize placing and consuming holds per doctor and day through {@link BookingLocks}.
+ */
+@Component
+public class SlotHolds {
+
+    public record Hold(String holdId, Long patientId, Long doctorId, LocalDateTime slotStart, long expiresAtMillis) {
+
+        boolean isActive(long nowMillis) {
+            return nowMillis < expiresAtMillis;
+        }
+    }
+
+    private final long ttlMillis;
+    private final long tickMillis;
+    private final long startMillis;
+
+    private final Map<String, Hold> holdsById = new ConcurrentHashMap<>();
+    private final Map<Long, Hold> holdsByPatient = new ConcurrentHashMap<>();
+    // Per doctor and day, the hold of each hour (index = hour), replaced copy-on-write inside compute
+    private final Map<DayKey, Hold[]> holdsByDay = new ConcurrentHashMap<>();
+    // Bumped whenever a hold is placed or removed
+    private final AtomicLong changes = new AtomicLong();
+
+    private final Queue<Hold>[] wheel;
+    private final int wheelMask;
+    private long currentTick; // guarded by advance
+    private final ScheduledExecutorService ticker;
+
+    @SuppressWarnings("unchecked")
+    public SlotHolds(@Value("${slot-holds.ttl:PT2M}") Duration ttl,
+            @Value("${slot-holds.tick:PT1S}") Duration tick) {
+        this.ttlMillis = ttl.toMillis();
+        this.tickMillis = Math.max(1, tick.toMillis());
+        this.startMillis = System.currentTimeMillis();
+
+        // Enough buckets that a hold is normally expired on the wheel's first pass over it
+        int buckets = Integer.highestOneBit((int) Math.min(1 << 16, ttlMillis / tickMillis + 1) * 2 - 1);
+        this.wheel = new Queue[Math.max(buckets, 2)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.wheelMask = wheel.length - 1;
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "slot-holds-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> advance(System.currentTimeMillis()), tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    // place: holds the slot for the patient, or returns null if another patient holds it
+    public Hold place(Long patientId, Long doctorId, LocalDateTime time) {
+        long now = System.currentTimeMillis();
+        Hold current = holder(doctorId, time, now);
+        if (current != null && !current.patientId().equals(patientId)) {
+            return null;
+        }
+
+        Hold previous = holdsByPatient.get(patientId);
+        if (previous != null) {
+            remove(previous);
+        }
+
+        Hold hold = new Hold(UUID.randomUUID().toString(), patientId, doctorId,
+                time.truncatedTo(ChronoUnit.HOURS), now + ttlMillis);
+        holdsByDay.compute(dayKey(doctorId, time), (key, hours) -> {
+            Hold[] updated = hours == null ? new Hold[CompiledAvailability.SLOTS_PER_DAY] : hours.clone();
+            updated[time.getHour()] = hold;
+            return updated;
+        });
+        holdsById.put(hold.holdId(), hold);
+        holdsByPatient.put(patientId, hold);
+        changes.incrementAndGet();
+        wheel[(int) (tickOf(hold.expiresAtMillis()) & wheelMask)].add(hold);
+        return hold;
+    }
+
+    // release: removes a hold on behalf of its patient; false if unknown, expired or someone else's
+    public boolean release(String holdId, Long patientId) {
+        Hold hold = holdsById.get(holdId);
+        if (hold == null || !hold.patientId().equals(patientId)) {
+            return false;
+        }
+        remove(hold);
+        return hold.isActive(System.currentTimeMillis());
+    }
+
+    // isHeldByOther: true when an active hold of another patient covers the slot of the given time
+    public boolean isHeldByOther(Long doctorId, LocalDateTime time, Long patientId) {
+        Hold hold = holder(doctorId, time, System.currentTimeMillis());
+        return hold != null && !hold.patientId().equals(patientId);
+    }
+
+    // consume: drops the patient's own hold on the slot once it has been booked
+    public void consume(Long doctorId, LocalDateTime time, Long patientId) {
+        Hold hold = holder(doctorId, time, System.currentTimeMillis());
+        if (hold != null && hold.patientId().equals(patientId)) {
+            remove(hold);
+        }
+    }
+
+    // heldMask: bit h is set when the hour starting at h:00 is under an active hold
+    public int heldMask(Long doctorId, LocalDate date) {
+        Hold[] hours = holdsByDay.get(new DayKey(doctorId, date));
+        if (hours == null) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        int mask = 0;
+        for (int hour = 0; hour < hours.length; hour++) {
+            if (hours[hour] != null && hours[hour].isActive(now)) {
+                mask |= 1 << hour;
+            }
+        }
+        return mask;
+    }
+
+    public int size() {
+        return holdsById.size();
+    }
+
+    // version: changes whenever a hold is placed or removed (expired holds count once the wheel removes them)
+    public long version() {
+        return changes.get();
+    }
+
+    private Hold holder(Long doctorId, LocalDateTime time, long now) {
+        Hold[] hours = holdsByDay.get(dayKey(doctorId, time));
+        Hold hold = hours == null ? null : hours[time.getHour()];
+        return hold != null && hold.isActive(now) ? hold : null;
+    }
+
+    // Removes the hold from every index, leaving any newer hold on the same slot or patient in place
+    private void remove(Hold hold) {
+        changes.incrementAndGet();
+        holdsById.remove(hold.holdId(), hold);
+        holdsByPatient.remove(hold.patientId(), hold);
+        int hour = hold.slotStart().getHour();
+        holdsByDay.computeIfPresent(dayKey(hold.doctorId(), hold.slotStart()), (key, hours) -> {
+            if (hours[hour] != hold) {
+                return hours;
+            }
+            Hold[] updated = hours.clone();
+            updated[hour] = null;
+            for (Hold other : updated) {
+                if (other != null) {
+                    return updated;
+                }
+            }
+            return null;
+        });
+    }
+
+    // advance: turns the wheel up to the given time, removing the holds that expired on the way
+    synchronized void advance(long nowMillis) {
+        long targetTick = (nowMillis - startMillis) / tickMillis; // only ticks whose time has fully passed
+        while (currentTick < targetTick) {
+            currentTick++;
+            Queue<Hold> bucket = wheel[(int) (currentTick & wheelMask)];
+            List<Hold> due = new ArrayList<>();
+            for (Hold hold = bucket.poll(); hold != null; hold = bucket.poll()) {
+                due.add(hold);
+            }
+            for (Hold hold : due) {
+                if (hold.isActive(nowMillis)) {
+                    bucket.add(hold); // due on a later turn of the wheel
+                } else {
+                    remove(hold);
+                }
+            }
+        }
+    }
+
+    // First tick at or after the given time
+    private long tickOf(long millis) {
+        return (millis - startMillis + tickMillis - 1) / tickMillis;
+    }
+
+    private static DayKey dayKey(Long doctorId, LocalDateTime time) {
+        return new DayKey(doctorId, time.toLocalDate());
+    }
+}
@@ -1,89 +1,295 @@
 package com.project.back_end.services;
 
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.crypto.SecretKey;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
 
-import com.project.back_end.repo.AdminRepository;
-import com.project.back_end.repo.DoctorRepository;
-import com.project.back_end.repo.PatientRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.project.back_end.DTO.TokenPrincipal;
+import com.project.back_end.models.Admin;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.models.TokenRevocation;
+import com.project.back_end.repo.TokenRevocationRepository;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
 @Component
-public class TokenService {
+public class TokenService implements ApplicationRunner {
+
+    public static final String ROLE_CLAIM = "role";
+    public static final String ID_CLAIM = "uid";
+
+    private static final long TOKEN_VALIDITY_MS = 7L * 24 * 60 * 60 * 1000; // 7 days
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final PrincipalCache principalCache;
+
+    // The key and parser are immutable and thread-safe, so they are built once
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
 
-    private final AdminRepository adminRepository;
-    private final PatientRepository patientRepository;
-    private final DoctorRepository doctorRepository;
+    // SHA-256 of a token -> principal it verified to, kept until the token expires
+    private final Cache<String, TokenPrincipal> verifiedTokens;
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-    
-    public TokenService(AdminRepository adminRepository, PatientRepository patientRepository,
-            DoctorRepository doctorRepository) {
-        this.adminRepository = adminRepository;
-        this.patientRepository = patientRepository;
-        this.doctorRepository = doctorRepository;
+    // role:id -> epoch second before which every token of that principal is rejected; persisted in token_revocation
+    // and reloaded when older than the refresh interval, so cutoffs survive restarts and reach every instance
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
+    private final TokenRevocationRepository revocationRepository;
+    private final long revocationRefreshMillis;
+    private final AtomicBoolean refreshingRevocations = new AtomicBoolean();
+    private volatile long revocationsLoadedAtMillis;
+
+    // Tokens issued before this epoch second are rejected for everyone (0 disables it)
+    private final long tokenEpoch;
+
+    public TokenService(PrincipalCache principalCache, TokenRevocationRepository revocationRepository,
+            @Value("${jwt.secret}") String jwtSecret,
+            @Value("${jwt.epoch:0}") long tokenEpoch,
+            @Value("${jwt.verified-cache-size:10000}") long verifiedCacheSize,
+            @Value("${jwt.revocation-refresh:PT1M}") Duration revocationRefresh) {
+        this.principalCache = principalCache;
+        this.revocationRepository = revocationRepository;
+        this.revocationRefreshMillis = revocationRefresh.toMillis();
+        this.tokenEpoch = tokenEpoch;
+        this.signingKey = getSigningKey(jwtSecret);
+        this.jwtParser = Jwts.parser().verifyWith(signingKey).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
     }
 
     // getSigningKey
-    private Key getSigningKey() {
+    private static SecretKey getSigningKey(String jwtSecret) {
         byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
         return Keys.hmacShaKeyFor(keyBytes);
     }
 
     // generateToken
-    public String generateToken(Long id, String email) {
+    public String generateToken(Long id, String email, String role) {
         Date now = new Date();
-        Date expiry = new Date(now.getTime() + 7 * 24 * 60 * 60 * 1000); // 7 days
+        Date expiry = new Date(now.getTime() + TOKEN_VALIDITY_MS);
 
         return Jwts.builder()
-                .setSubject(email)
-                .setIssuedAt(now)
-                .setExpiration(expiry)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .subject(email)
+                .claim(ROLE_CLAIM, role.toLowerCase())
+                .claim(ID_CLAIM, id)
+                .issuedAt(now)
+                .expiration(expiry)
+                .signWith(signingKey, Jwts.SIG.HS256)
                 .compact();
     }
 
-    // 5. extractEmail
-    public String extractEmail(String token) {
+    // extractPrincipal
+    public TokenPrincipal extractPrincipal(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String digest = digest(token);
+        TokenPrincipal cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
+
+        TokenPrincipal principal = parsePrincipal(token);
+        if (principal != null && principal.getExpiresAt() != null) {
+            verifiedTokens.put(digest, principal);
+        }
+        return principal;
+    }
+
+    // parsePrincipal: full signature and expiry verification, bypassing the cache
+    TokenPrincipal parsePrincipal(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-
-            return claims.getSubject();
-        } catch (JwtException e) {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+
+            Number id = claims.get(ID_CLAIM, Number.class);
+            return new TokenPrincipal(
+                    claims.get(ROLE_CLAIM, String.class),
+                    id != null ? id.longValue() : null,
+                    claims.getSubject(),
+                    claims.getIssuedAt(),
+                    claims.getExpiration());
+        } catch (JwtException | IllegalArgumentException e) {
             System.err.println("Token parsing error: " + e.getMessage());
             return null;
         }
     }
 
+    // 5. extractEmail
+    public String extractEmail(String token) {
+        TokenPrincipal principal = extractPrincipal(token);
+        return principal != null ? principal.getEmail() : null;
+    }
+
     // 6. validateToken
     public boolean validateToken(String token, String role) {
+        return authenticate(token, role) != null;
+    }
+
+    // authenticate: verifies the token for a role and returns the principal it belongs to, or null
+    public TokenPrincipal authenticate(String token, String role) {
         try {
-            String email = extractEmail(token);
-            if (email == null) return false;
-
-            return switch (role.toLowerCase()) {
-                case "admin" -> adminRepository.findByUsername(email) != null;
-                case "doctor" -> doctorRepository.findByEmail(email) != null;
-                case "patient" -> patientRepository.findByEmail(email) != null;
-                default -> false;
-            };
+            TokenPrincipal principal = extractPrincipal(token);
+            if (principal == null || role == null) {
+                return null;
+            }
+            if (!principal.hasClaims()) {
+                return resolveLegacyPrincipal(principal, role);
+            }
+            return principal.hasRole(role) && !isRevoked(principal) ? principal : null;
         } catch (Exception e) {
             System.err.println("Token validation error: " + e.getMessage());
-            return false;
+            return null;
+        }
+    }
+
+    // Legacy tokens without role/id claims still need one lookup until they expire
+    private TokenPrincipal resolveLegacyPrincipal(TokenPrincipal principal, String role) {
+        String email = principal.getEmail();
+        if (email == null) return null;
+
+        String normalizedRole = role.toLowerCase();
+        Long id = switch (normalizedRole) {
+            case "admin" -> {
+                Admin admin = principalCache.findAdminByUsername(email);
+                yield admin != null ? admin.getId() : null;
+            }
+            case "doctor" -> {
+                Doctor doctor = principalCache.findDoctorByEmail(email);
+                yield doctor != null ? doctor.getId() : null;
+            }
+            case "patient" -> {
+                Patient patient = principalCache.findPatientByEmail(email);
+                yield patient != null ? patient.getId() : null;
+            }
+            default -> null;
+        };
+        if (id == null) {
+            return null;
+        }
+        return new TokenPrincipal(normalizedRole, id, email, principal.getIssuedAt(), principal.getExpiresAt());
+    }
+
+    // isRevoked
+    private boolean isRevoked(TokenPrincipal principal) {
+        long issuedAt = principal.getIssuedAt() != null ? principal.getIssuedAt().getTime() / 1000 : 0;
+        if (issuedAt < tokenEpoch) {
+            return true;
+        }
+        refreshRevocationsIfStale();
+        Long cutoff = revokedBefore.get(revocationKey(principal.getRole(), principal.getId()));
+        return cutoff != null && issuedAt < cutoff;
+    }
+
+    // revokeTokens: rejects every token of the principal issued until now, on this instance at once and on the others
+    // from their next refresh; the cutoff is saved in the caller's transaction (e.g. with the doctor's deletion)
+    public void revokeTokens(String role, Long id) {
+        long now = System.currentTimeMillis() / 1000;
+        String key = revocationKey(role, id);
+        revokedBefore.put(key, now);
+        revocationRepository.save(new TokenRevocation(key, now));
+        // Cutoffs older than the token lifetime can no longer match a live token
+        revocationRepository.deleteByRevokedBeforeLessThan(now - TOKEN_VALIDITY_MS / 1000);
+    }
+
+    // The cutoffs are loaded at startup, so the first requests do not pay for it
+    @Override
+    public void run(ApplicationArguments args) {
+        loadRevocations();
+    }
+
+    // Reloads the cutoffs once older than the refresh interval: one reader reloads, the others use the current ones
+    private void refreshRevocationsIfStale() {
+        if (revocationsLoadedAtMillis == 0) {
+            synchronized (this) {
+                if (revocationsLoadedAtMillis == 0) {
+                    loadRevocations();
+                }
+            }
+        } else if (System.currentTimeMillis() - revocationsLoadedAtMillis >= revocationRefreshMillis
+                && refreshingRevocations.compareAndSet(false, true)) {
+            try {
+                loadRevocations();
+            } finally {
+                refreshingRevocations.set(false);
+            }
+        }
+    }
+
+    // loadRevocations: merges the persisted cutoffs of the token lifetime into memory and drops expired ones
+    void loadRevocations() {
+        long nowMillis = System.currentTimeMillis();
+        long since = nowMillis / 1000 - TOKEN_VALIDITY_MS / 1000;
+        try {
+            for (TokenRevocation revocation : revocationRepository.findByRevokedBeforeGreaterThanEqual(since)) {
+                revokedBefore.merge(revocation.getPrincipalKey(), revocation.getRevokedBefore(), Math::max);
+            }
+            revokedBefore.values().removeIf(cutoff -> cutoff < since);
+        } catch (Exception e) {
+            System.err.println("Error loading token revocations: " + e.getMessage());
+        }
+        revocationsLoadedAtMillis = nowMillis;
+    }
+
+    private static String revocationKey(String role, Long id) {
+        return role.toLowerCase() + ":" + id;
+    }
+
+    private static String digest(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    // Verified tokens by digest, for metrics binders
+    public Cache<String, TokenPrincipal> cache() {
+        return verifiedTokens;
+    }
+
+    // Keeps each verified token only as long as the token itself stays valid
+    private static final class UntilTokenExpiry implements Expiry<String, TokenPrincipal> {
+        @Override
+        public long expireAfterCreate(String key, TokenPrincipal principal, long currentTime) {
+            long remainingMs = principal.getExpiresAt().getTime() - System.currentTimeMillis();
+            return Math.max(0, remainingMs) * 1_000_000;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, TokenPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, TokenPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
 
@@ -94,18 +300,20 @@ public class TokenService {
 // This allows the class to be injected into other Spring-managed components (like services or controllers) where it's needed.
 
 // 2. **Constructor Injection for Dependencies**
-// The constructor injects dependencies for `AdminRepository`, `DoctorRepository`, and `PatientRepository`,
-// allowing the service to interact with the database and validate users based on their role (admin, doctor, or patient).
+// The constructor injects the `PrincipalCache`, which resolves admins, doctors and patients through their repositories,
+// allowing the service to validate users based on their role (admin, doctor, or patient).
 // Constructor injection ensures that the class is initialized with all required dependencies, promoting immutability and making the class testable.
 
 // 3. **getSigningKey Method**
-// This method retrieves the HMAC SHA key used to sign JWT tokens.
+// This method builds the HMAC SHA key used to sign JWT tokens.
 // It uses the `jwt.secret` value, which is provided from an external source (like application properties).
 // The `Keys.hmacShaKeyFor()` method converts the secret key string into a valid `SecretKey` for signing and verification of JWTs.
+// The key and the `JwtParser` built from it are created once in the constructor and reused for every request.
 
 // 4. **generateToken Method**
-// This method generates a JWT token for a user based on their email.
+// This method generates a JWT token for a user based on their email, id and role.
 // - The `subject` of the token is set to the user's email, which is used as an identifier.
+// - The `role` and `uid` claims carry the user's role and entity id, signed with the rest of the token.
 // - The `issuedAt` is set to the current date and time.
 // - The `expiration` is set to 7 days from the issue date, ensuring the token expires after one week.
 // - The token is signed using the signing key generated by `getSigningKey()`, making it secure and tamper-proof.
@@ -114,16 +322,24 @@ public class TokenService {
 // 5. **extractEmail Method**
 // This method extracts the user's email (subject) from the provided JWT token.
 // - The token is first verified using the signing key to ensure it hasn’t been tampered with.
+// - Verified tokens are remembered by their SHA-256 digest until they expire (bounded by `jwt.verified-cache-size`),
+//   so repeated calls for the same token skip the signature check.
 // - After verification, the token is parsed, and the subject (which represents the email) is extracted.
 // This method allows the application to retrieve the user's identity (email) from the token for further use.
 
 // 6. **validateToken Method**
 // This method validates whether a provided JWT token is valid for a specific user role (admin, doctor, or patient).
-// - It first extracts the email from the token using the `extractEmail()` method.
-// - Depending on the role (`admin`, `doctor`, or `patient`), it checks the corresponding repository (AdminRepository, DoctorRepository, or PatientRepository)
-//   to see if a user with the extracted email exists.
+// - It first verifies the token and reads its claims using the `extractPrincipal()` method.
+// - Tokens carrying `role` and `uid` claims are authorized from the claims alone: the role must match and the
+//   token must not predate `jwt.epoch` or a cutoff recorded through `revokeTokens()` (e.g. when a doctor is deleted).
+//   Cutoffs are saved in the `token_revocation` table and reloaded every `jwt.revocation-refresh`, so a deleted
+//   doctor's token stays rejected after a restart and on every instance.
+// - Older tokens without those claims fall back to checking the `PrincipalCache` (backed by AdminRepository,
+//   DoctorRepository, or PatientRepository) to see if a user with the extracted email exists.
 // - If a match is found for the specified user role, it returns true, indicating the token is valid.
 // - If the role or user does not exist, it returns false, indicating the token is invalid.
 // - The method gracefully handles any errors by returning false if the token is invalid or an exception occurs.
+// - `authenticate()` performs the same checks and returns the resolved principal (role, id, email) instead of a boolean;
+//   the authentication interceptor uses it so each request verifies its token only once.
 // This ensures secure access control based on the user's role and their existence in the system.
 
@@ -0,0 +1,82 @@
+package com.project.back_end.services;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable case-insensitive substring index over a list of texts, answering "which positions
+ * contain q" the way {@code LOWER(x) LIKE '%q%'} would. Each text is split into its
+ * three-character grams with a bitset of positions per gram; a query intersects the bitsets of
+ * its own grams to prune candidates and then confirms each candidate with a substring check.
+ * Queries shorter than three characters have no grams and are checked against every text.
+ */
+public final class TrigramIndex {
+
+    private static final int GRAM = 3;
+
+    private final String[] texts;
+    private final Map<String, BitSet> postings = new HashMap<>();
+
+    // texts: one per position (null is indexed as empty)
+    public TrigramIndex(List<String> texts) {
+        this.texts = new String[texts.size()];
+        for (int i = 0; i < this.texts.length; i++) {
+            this.texts[i] = lower(texts.get(i));
+            for (String gram : trigrams(this.texts[i])) {
+                postings.computeIfAbsent(gram, k -> new BitSet()).set(i);
+            }
+        }
+    }
+
+    // matching: positions whose text contains the query, ignoring case; a new bitset the caller may modify
+    public BitSet matching(String query) {
+        String needle = lower(query);
+        BitSet candidates = null;
+        for (String gram : trigrams(needle)) {
+            BitSet positions = postings.get(gram);
+            if (positions == null) {
+                return new BitSet();
+            }
+            if (candidates == null) {
+                candidates = (BitSet) positions.clone();
+            } else {
+                candidates.and(positions);
+            }
+        }
+        if (candidates == null) {
+            candidates = new BitSet();
+            candidates.set(0, texts.length);
+        }
+        // Grams matched in the wrong order or apart are not a substring match
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (!texts[i].contains(needle)) {
+                candidates.clear(i);
+            }
+        }
+        return candidates;
+    }
+
+    public int size() {
+        return texts.length;
+    }
+
+    static List<String> trigrams(String text) {
+        if (text.length() < GRAM) {
+            return Collections.emptyList();
+        }
+        List<String> grams = new ArrayList<>(text.length() - GRAM + 1);
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String lower(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,19 @@
+-- Secondary indexes of the hot repository queries (same set as db/migration/mysql).
+
+-- Doctor day sheets, booked slots and availability: doctor_id = ? AND appointment_time BETWEEN ? AND ?
+CREATE INDEX IF NOT EXISTS idx_appointment_doctor_time ON appointment (doctor_id, appointment_time);
+
+-- Patient history and past/future filters: patient_id = ? [AND status = ?] ORDER BY appointment_time
+CREATE INDEX IF NOT EXISTS idx_appointment_patient_status_time ON appointment (patient_id, status, appointment_time);
+
+-- Doctor login and token principals: email = ?
+CREATE INDEX IF NOT EXISTS idx_doctor_email ON doctor (email);
+
+-- Patient login, token principals and registration checks: email = ?
+CREATE INDEX IF NOT EXISTS idx_patient_email ON patient (email);
+
+-- Patient registration check: email = ? OR phone = ?
+CREATE INDEX IF NOT EXISTS idx_patient_phone ON patient (phone);
+
+-- Admin login and token principals: username = ?
+CREATE INDEX IF NOT EXISTS idx_admin_username ON admin (username);
@@ -0,0 +1,6 @@
+-- Appointments booked before slot_start existed have none (see db/migration/mysql); rows whose slot is already held are skipped.
+UPDATE appointment a
+SET slot_start = DATE_TRUNC('HOUR', a.appointment_time)
+WHERE a.slot_start IS NULL AND a.appointment_time IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM appointment b
+                  WHERE b.doctor_id = a.doctor_id AND b.slot_start = DATE_TRUNC('HOUR', a.appointment_time));
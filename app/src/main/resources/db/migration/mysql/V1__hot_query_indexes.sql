@@ -0,0 +1,57 @@
+-- Secondary indexes of the hot repository queries.
+-- MySQL has no CREATE INDEX IF NOT EXISTS: each index is created through a prepared statement only when
+-- information_schema does not list it yet, so the script also runs on schemas indexed by hand.
+
+-- Doctor day sheets, booked slots and availability: doctor_id = ? AND appointment_time BETWEEN ? AND ?
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'appointment' AND index_name = 'idx_appointment_doctor_time') > 0,
+        'SELECT 1',
+        'CREATE INDEX idx_appointment_doctor_time ON appointment (doctor_id, appointment_time)');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Patient history and past/future filters: patient_id = ? [AND status = ?] ORDER BY appointment_time
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'appointment' AND index_name = 'idx_appointment_patient_status_time') > 0,
+        'SELECT 1',
+        'CREATE INDEX idx_appointment_patient_status_time ON appointment (patient_id, status, appointment_time)');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Doctor login and token principals: email = ?
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'doctor' AND index_name = 'idx_doctor_email') > 0,
+        'SELECT 1',
+        'CREATE INDEX idx_doctor_email ON doctor (email)');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Patient login, token principals and registration checks: email = ?
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'patient' AND index_name = 'idx_patient_email') > 0,
+        'SELECT 1',
+        'CREATE INDEX idx_patient_email ON patient (email)');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Patient registration check: email = ? OR phone = ?
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'patient' AND index_name = 'idx_patient_phone') > 0,
+        'SELECT 1',
+        'CREATE INDEX idx_patient_phone ON patient (phone)');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Admin login and token principals: username = ?
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'admin' AND index_name = 'idx_admin_username') > 0,
+        'SELECT 1',
+        'CREATE INDEX idx_admin_username ON admin (username)');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,5 @@
+-- Appointments booked before slot_start existed have none, so the unique (doctor_id, slot_start) constraint and the
+-- slot lookups of the availability queries miss them. IGNORE skips a row whose slot another appointment already holds.
+UPDATE IGNORE appointment
+SET slot_start = DATE_FORMAT(appointment_time, '%Y-%m-%d %H:00:00')
+WHERE slot_start IS NULL AND appointment_time IS NOT NULL;
@@ -10,21 +10,10 @@ const DOCTOR_FILTER = API_BASE_URL + '/doctor/filter';
  */
 export async function getDoctors() {
     try {
-        // 1. Use fetch() to send a GET request to the DOCTOR_API endpoint
-        const response = await fetch(DOCTOR_FILTER);
-
-        // Check if the request was successful (status code 200-299)
-        if (!response.ok) {
-            // Throw an error if the HTTP status is not successful
-            throw new Error(`HTTP error! status: ${response.status}`);
-        }
-
-        // 2. Convert the response to JSON
-        const data = await response.json();
-
-        // 3. Return the 'doctors' array from the response
-        // Assuming the API response structure is like: { success: true, doctors: [...] }
-        return data.doctors || []; // Use '[]' as a safeguard if 'doctors' is missing
+        // 1. Fetch the listing from the DOCTOR_FILTER endpoint, following its pages
+        // 2. Each page is JSON like { doctors: [...], nextCursor: 42 }
+        // 3. Return the doctors of every page
+        return await fetchAllDoctorPages(DOCTOR_FILTER);
 
     } catch (error) {
         // 4. If there's an error (e.g., network issue, JSON parsing, HTTP error), log it and return an empty array
@@ -33,6 +22,34 @@ export async function getDoctors() {
     }
 }
 
+/**
+ * Fetches every page of a paginated doctor listing, passing each response's `nextCursor`
+ * back as `after` until the last page (nextCursor null).
+ * @param {string} url - The listing endpoint, optionally with filter query parameters.
+ * @param {RequestInit} [options] - Options passed to fetch().
+ * @returns {Promise<Array>} The doctors of all pages. Throws on a non-2xx status, with the response attached.
+ */
+async function fetchAllDoctorPages(url, options) {
+    const doctors = [];
+    let cursor = null;
+    do {
+        const pageUrl = new URL(url, window.location.origin);
+        if (cursor !== null) {
+            pageUrl.searchParams.set('after', cursor);
+        }
+        const response = await fetch(pageUrl, options);
+        if (!response.ok) {
+            const error = new Error(`HTTP error! status: ${response.status}`);
+            error.response = response;
+            throw error;
+        }
+        const data = await response.json();
+        doctors.push(...(data.doctors || []));
+        cursor = data.nextCursor ?? null;
+    } while (cursor !== null);
+    return doctors;
+}
+
 // Example of how to call the function:
 /*
 (async () => {
@@ -180,31 +197,22 @@ export async function filterDoctors(name, time, specialty) {
 
     try {
         // Since this is a public search/filter, no authorization token is usually needed
-        const response = await fetch(fullEndpoint, {
+        // The listing is paginated, so every page is collected
+        return await fetchAllDoctorPages(fullEndpoint, {
             method: 'GET',
             headers: {
                 'Content-Type': 'application/json'
             }
         });
-        
-        if (!response.ok) {
+
+    } catch (error) {
+        if (error.response) {
             // Handle server errors (e.g., 500) or bad request errors (e.g., 400)
-            const errorData = await response.json().catch(() => ({}));
-            console.error(`Filtering failed. Server responded with status ${response.status}. Details: ${errorData.message || 'No detailed message provided.'}`);
-            // Alert user of the failure gracefully (in a real app, this would update the UI)
-            // Since we can't use alert(), we log the critical message.
-            
+            const errorData = await error.response.json().catch(() => ({}));
+            console.error(`Filtering failed. Server responded with status ${error.response.status}. Details: ${errorData.message || 'No detailed message provided.'}`);
             // Return an empty array on failure
             return [];
         }
-
-        // Assuming the response body contains an object with a 'doctors' array
-        const data = await response.json();
-        console.log(data.doctors);
-        // Return the filtered list, defaulting to an empty array if 'doctors' is missing
-        return data.doctors || []; 
-
-    } catch (error) {
         // Handle network errors (e.g., disconnection)
         console.error("Network or critical error during doctor filtering:", error);
         // In a real app, you would show an error message in the UI:
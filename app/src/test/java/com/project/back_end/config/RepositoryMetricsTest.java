@@ -0,0 +1,85 @@
+package com.project.back_end.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * With a zero slow-query threshold every repository call is slow: each one records its rows and
+ * increments the slow counter, a call that fails included.
+ */
+@SpringBootTest(properties = "repository-metrics.slow-query-threshold=PT0S")
+@ActiveProfiles("h2")
+class RepositoryMetricsTest {
+
+    private static final String REPOSITORY = "DoctorRepository";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @AfterEach
+    void tearDown() {
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void recordsRowsAndSlowCalls() {
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setName("Metrics Doctor " + i);
+            doctor.setSpecialty("Dermatology");
+            doctor.setEmail("metrics.doctor" + i + "@example.com");
+            doctor.setPassword("secret" + i);
+            doctor.setPhone("5550000000");
+            doctor.setAvailableTimes(List.of("08:00-20:00"));
+            doctors.add(doctor);
+        }
+        doctorRepository.saveAll(doctors);
+
+        doctorRepository.findBySpecialtyIgnoreCase("dermatology");
+
+        DistributionSummary rows = meterRegistry.get(RepositoryMetrics.ROWS_METRIC)
+                .tags("repository", REPOSITORY, "method", "findBySpecialtyIgnoreCase")
+                .summary();
+        assertEquals(1, rows.count());
+        assertEquals(3, rows.totalAmount());
+        assertEquals(1, slowCalls("findBySpecialtyIgnoreCase"));
+    }
+
+    @Test
+    void countsFailedCallsAsSlow() {
+        assertThrows(RuntimeException.class, () -> doctorRepository.findById(null));
+
+        assertEquals(1, slowCalls("findById"));
+        assertNull(meterRegistry.find(RepositoryMetrics.ROWS_METRIC)
+                .tags("repository", REPOSITORY, "method", "findById")
+                .summary(), "no rows recorded for a failed call");
+    }
+
+    private double slowCalls(String method) {
+        Counter counter = meterRegistry.find(RepositoryMetrics.SLOW_METRIC)
+                .tags("repository", REPOSITORY, "method", method)
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
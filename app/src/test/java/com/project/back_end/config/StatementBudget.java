@@ -0,0 +1,45 @@
+package com.project.back_end.config;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+/**
+ * MockMvc matchers asserting how many SQL statements and Mongo commands an endpoint issued,
+ * read from the {@link StatementCounter} headers (the "h2" test profile enables them):
+ * <pre>
+ * mockMvc.perform(get("/doctor/all")).andExpect(StatementBudget.sqlStatementsAtMost(2));
+ * </pre>
+ */
+public final class StatementBudget {
+
+    private StatementBudget() {
+    }
+
+    public static ResultMatcher sqlStatementsAtMost(int budget) {
+        return result -> assertAtMost(result, StatementCounter.SQL_HEADER, budget);
+    }
+
+    public static ResultMatcher mongoCommandsAtMost(int budget) {
+        return result -> assertAtMost(result, StatementCounter.MONGO_HEADER, budget);
+    }
+
+    // sqlStatements: the SQL statement count of a performed request
+    public static int sqlStatements(MvcResult result) {
+        return count(result, StatementCounter.SQL_HEADER);
+    }
+
+    private static void assertAtMost(MvcResult result, String header, int budget) {
+        int count = count(result, header);
+        assertTrue(count <= budget, result.getRequest().getMethod() + " " + result.getRequest().getRequestURI()
+                + " issued " + count + " (" + header + "), budget " + budget);
+    }
+
+    private static int count(MvcResult result, String header) {
+        String value = result.getResponse().getHeader(header);
+        assertNotNull(value, header + " missing: is query-count.enabled set and does the endpoint write a body?");
+        return Integer.parseInt(value);
+    }
+}
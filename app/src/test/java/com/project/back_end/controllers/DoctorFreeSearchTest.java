@@ -0,0 +1,123 @@
+package com.project.back_end.controllers;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.services.SlotHolds;
+
+/**
+ * The {@code /doctor/free} searches answer from the availability rows: a doctor is free at a time
+ * when a range covers the whole hour and no appointment or hold takes it.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class DoctorFreeSearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private SlotHolds slotHolds;
+
+    private LocalDateTime mondayTen;
+    private SlotHolds.Hold hold;
+
+    @BeforeEach
+    void setUp() {
+        mondayTen = LocalDate.now().plusDays(1).with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
+
+        Doctor booked = doctorRepository.save(doctor("Booked", List.of("MON 09:00-12:00")));
+        doctorRepository.save(doctor("Afternoon", List.of("MON 14:00-17:00")));
+        Doctor held = doctorRepository.save(doctor("Held", List.of("08:00-20:00")));
+        doctorRepository.save(doctor("Free", List.of("MON 09:00-12:00")));
+
+        Patient patient = new Patient();
+        patient.setName("Search Patient");
+        patient.setEmail("search.patient@example.com");
+        patient.setPassword("secret1");
+        patient.setPhone("5550000000");
+        patient.setAddress("1 Main Street");
+        patient = patientRepository.save(patient);
+
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(booked);
+        appointment.setPatient(patient);
+        appointment.setAppointmentTime(mondayTen);
+        appointment.setStatus(0);
+        appointmentRepository.save(appointment);
+
+        hold = slotHolds.place(patient.getId(), held.getId(), mondayTen);
+    }
+
+    @AfterEach
+    void tearDown() {
+        slotHolds.release(hold.holdId(), hold.patientId());
+        appointmentRepository.deleteAll();
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void freeAtExcludesBookedHeldAndUnofferedSlots() throws Exception {
+        mockMvc.perform(get("/doctor/free").param("at", mondayTen.plusMinutes(30).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.doctors[*].name").value(containsInAnyOrder("Free")));
+    }
+
+    @Test
+    void slotBetweenNeedsAnHourOfOverlap() throws Exception {
+        mockMvc.perform(get("/doctor/free").param("day", "MONDAY").param("from", "11:30").param("to", "15:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.doctors[*].name").value(containsInAnyOrder("Afternoon", "Held")));
+    }
+
+    @Test
+    void slotBetweenRejectsRangesShorterThanAnHour() throws Exception {
+        mockMvc.perform(get("/doctor/free").param("day", "MONDAY").param("from", "10:00").param("to", "10:30"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static Doctor doctor(String name, List<String> availableTimes) {
+        Doctor doctor = new Doctor();
+        doctor.setName(name);
+        doctor.setSpecialty("Cardiology");
+        doctor.setEmail(name.toLowerCase() + ".doctor@example.com");
+        doctor.setPassword("secret1");
+        doctor.setPhone("5550000000");
+        doctor.setAvailableTimes(availableTimes);
+        return doctor;
+    }
+}
@@ -0,0 +1,93 @@
+package com.project.back_end.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The doctor listing must load doctors and their availability with a fixed number of SQL
+ * statements, however many doctors there are.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class DoctorListingQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void doctorListingStatementCountDoesNotGrowWithDoctors() throws Exception {
+        addDoctors(0, 3);
+        long fewDoctors = statementsFor("/doctor/all?size=100", 3);
+
+        addDoctors(3, 60);
+        long manyDoctors = statementsFor("/doctor/all?size=100", 60);
+
+        assertEquals(2, fewDoctors, "page of ids plus one fetch of those doctors with availability");
+        assertEquals(fewDoctors, manyDoctors);
+    }
+
+    private long statementsFor(String path, int expectedDoctors) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.doctors.length()").value(expectedDoctors))
+                .andExpect(jsonPath("$.doctors[0].availableTimes[0]").value("09:00-12:00"));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addDoctors(int from, int to) {
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setName("Doctor " + i);
+            doctor.setSpecialty("Cardiology");
+            doctor.setEmail("doctor" + i + "@example.com");
+            doctor.setPassword("secret" + i);
+            doctor.setPhone("5550000000");
+            doctor.setAvailableTimes(List.of("09:00-12:00", "MON 14:00-16:00"));
+            doctors.add(doctor);
+        }
+        doctorRepository.saveAll(doctors);
+    }
+}
@@ -0,0 +1,140 @@
+package com.project.back_end.controllers;
+
+import static com.project.back_end.config.StatementBudget.mongoCommandsAtMost;
+import static com.project.back_end.config.StatementBudget.sqlStatementsAtMost;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+import com.project.back_end.repo.DoctorRepository;
+import com.project.back_end.repo.PatientRepository;
+import com.project.back_end.services.TokenService;
+
+/**
+ * Statement budgets of the main read endpoints, so an N+1 or an extra round trip fails the
+ * build instead of reaching production. Tokens carry signed role and id claims, so the token
+ * check costs no statement and each budget is exactly the endpoint's own queries.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class EndpointStatementBudgetTest {
+
+    private static final int APPOINTMENTS = 12;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private TokenService tokenService;
+
+    private List<Doctor> doctors;
+    private Patient patient;
+    private LocalDateTime firstSlot;
+
+    @BeforeEach
+    void setUp() {
+        doctors = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Doctor doctor = new Doctor();
+            doctor.setName("Doctor " + i);
+            doctor.setSpecialty("Cardiology");
+            doctor.setEmail("budget.doctor" + i + "@example.com");
+            doctor.setPassword("secret" + i);
+            doctor.setPhone("5550000000");
+            doctor.setAvailableTimes(List.of("08:00-20:00"));
+            doctors.add(doctor);
+        }
+        doctors = doctorRepository.saveAll(doctors);
+
+        patient = new Patient();
+        patient.setName("Budget Patient");
+        patient.setEmail("budget.patient@example.com");
+        patient.setPassword("secret1");
+        patient.setPhone("5550000000");
+        patient.setAddress("1 Main Street");
+        patient = patientRepository.save(patient);
+
+        // One appointment per hour with the first doctor: together they are its day sheet and the patient's history
+        firstSlot = LocalDateTime.now().plusDays(3).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            Appointment appointment = new Appointment();
+            appointment.setDoctor(doctors.get(0));
+            appointment.setPatient(patient);
+            appointment.setAppointmentTime(firstSlot.plusHours(i));
+            appointment.setStatus(0);
+            appointmentRepository.save(appointment);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void doctorListingFitsItsBudget() throws Exception {
+        // The page of doctors, then the availability of all of them
+        mockMvc.perform(get("/doctor/all?size=100"))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatementsAtMost(2))
+                .andExpect(mongoCommandsAtMost(0));
+    }
+
+    @Test
+    void patientHistoryFitsItsBudget() throws Exception {
+        String token = tokenService.generateToken(patient.getId(), patient.getEmail(), "patient");
+        // One projection statement joining each appointment with its doctor
+        mockMvc.perform(get("/patient/" + patient.getId() + "/appointments/patient/" + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointments.length()").value(APPOINTMENTS))
+                .andExpect(sqlStatementsAtMost(1))
+                .andExpect(mongoCommandsAtMost(0));
+    }
+
+    @Test
+    void doctorDaySheetFitsItsBudget() throws Exception {
+        Doctor doctor = doctors.get(0);
+        String token = tokenService.generateToken(doctor.getId(), doctor.getEmail(), "doctor");
+        String path = "/appointments/doctor/" + doctor.getId() + "/" + firstSlot.toLocalDate() + "/budget/" + token;
+
+        // One projection statement for the day on a cold day sheet
+        mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(APPOINTMENTS))
+                .andExpect(sqlStatementsAtMost(1));
+
+        // The day sheet is cached: a dashboard poll costs no statement
+        mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatementsAtMost(0));
+    }
+}
@@ -0,0 +1,152 @@
+package com.project.back_end.repo;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.project.back_end.config.StatementCounter;
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+
+/**
+ * Runs the hot repository queries against the migrated test database, captures the SQL Hibernate
+ * issues for them and fails if the plan of any of them scans a table instead of using an index.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class QueryPlanTest {
+
+    private static final String TABLE_SCAN = ".tableScan";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AdminRepository adminRepository;
+
+    private Doctor doctor;
+    private Patient patient;
+    private LocalDateTime day;
+
+    @BeforeEach
+    void setUp() {
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Doctor next = new Doctor();
+            next.setName("Plan Doctor " + i);
+            next.setSpecialty("Cardiology");
+            next.setEmail("plan.doctor" + i + "@example.com");
+            next.setPassword("secret" + i);
+            next.setPhone("5550000000");
+            next.setAvailableTimes(List.of("08:00-20:00"));
+            doctors.add(next);
+        }
+        doctors = doctorRepository.saveAll(doctors);
+        doctor = doctors.get(0);
+
+        patient = new Patient();
+        patient.setName("Plan Patient");
+        patient.setEmail("plan.patient@example.com");
+        patient.setPassword("secret1");
+        patient.setPhone("5551234567");
+        patient.setAddress("1 Main Street");
+        patient = patientRepository.save(patient);
+
+        day = LocalDateTime.now().plusDays(2).withHour(0).withMinute(0).withSecond(0).withNano(0);
+        List<Appointment> appointments = new ArrayList<>();
+        for (Doctor next : doctors) {
+            for (int hour = 8; hour < 12; hour++) {
+                Appointment appointment = new Appointment();
+                appointment.setDoctor(next);
+                appointment.setPatient(patient);
+                appointment.setAppointmentTime(day.withHour(hour));
+                appointment.setStatus(0);
+                appointments.add(appointment);
+            }
+        }
+        appointmentRepository.saveAll(appointments);
+    }
+
+    @AfterEach
+    void tearDown() {
+        appointmentRepository.deleteAll();
+        patientRepository.deleteAll();
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void hotQueriesUseIndexes() throws SQLException {
+        StatementCounter.Counts counts = StatementCounter.track(() -> {
+            appointmentRepository.findAppointmentDTOsByDoctorIdAndAppointmentTimeBetween(doctor.getId(), day, day.plusDays(1));
+            appointmentRepository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(doctor.getId(), day, day.plusDays(1));
+            appointmentRepository.findAppointmentDTOsByPatientId(patient.getId());
+            appointmentRepository.findAppointmentDTOsByPatientIdAndStatus(patient.getId(), 0);
+            doctorRepository.findByEmail(doctor.getEmail());
+            patientRepository.findByEmail(patient.getEmail());
+            adminRepository.findByUsername("admin");
+        });
+        Set<String> statements = counts.getShapes().keySet();
+        assertFalse(statements.isEmpty(), "No statement was captured");
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (String sql : statements) {
+                String plan = explain(connection, sql);
+                assertFalse(plan.contains(TABLE_SCAN), () -> "Full table scan in\n" + plan);
+            }
+        }
+    }
+
+    @Test
+    void migrationsCreateTheHotQueryIndexes() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            String plan = explain(connection, "SELECT a.id FROM appointment a WHERE a.patient_id = ? AND a.status = ?"
+                    + " ORDER BY a.appointment_time");
+            assertTrue(plan.contains("IDX_APPOINTMENT_PATIENT_STATUS_TIME"), plan);
+            assertTrue(explain(connection, "SELECT p.id FROM patient p WHERE p.phone = ?").contains("IDX_PATIENT_PHONE"));
+        }
+    }
+
+    // explain: the H2 plan of sql; every parameter is bound to null, which leaves the index choice unchanged
+    private static String explain(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setObject(i, null);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        }
+    }
+}
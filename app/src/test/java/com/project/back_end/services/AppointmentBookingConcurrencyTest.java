@@ -0,0 +1,224 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.project.back_end.models.Appointment;
+import com.project.back_end.models.Doctor;
+import com.project.back_end.models.Patient;
+import com.project.back_end.repo.AppointmentRepository;
+
+/**
+ * Hammers {@link AppointmentService#bookAppointment} from many threads against an in-memory
+ * appointment table that, unlike the database, has no unique constraint: the per doctor-day
+ * lock and the calendar check alone must keep every slot booked at most once. Saves and
+ * commits are slowed down slightly to widen any race window.
+ */
+class AppointmentBookingConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 400;
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 7);
+    private static final int HOT_SLOTS = 8; // 09:00 to 16:00
+    private static final long HOT_DOCTOR_ID = 1L;
+    private static final int COLD_DOCTORS = 1000;
+    private static final long PATIENT_ID = 7L;
+
+    // doctor id + slot start -> number of saved appointments
+    private final Map<String, AtomicInteger> savedPerSlot = new ConcurrentHashMap<>();
+    private final Map<BookingCalendar.DayKey, List<LocalDateTime>> table = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+
+    private BookingLocks bookingLocks;
+    private AppointmentService appointmentService;
+
+    @BeforeEach
+    void setUp() {
+        AppointmentRepository repository = mock(AppointmentRepository.class, withSettings().stubOnly());
+        when(repository.save(any(Appointment.class))).thenAnswer(invocation -> {
+            Appointment appointment = invocation.getArgument(0);
+            LockSupport.parkNanos(20_000); // insert latency
+            Long doctorId = appointment.getDoctor().getId();
+            LocalDateTime time = appointment.getAppointmentTime();
+            savedPerSlot.computeIfAbsent(doctorId + "@" + time.truncatedTo(ChronoUnit.HOURS), k -> new AtomicInteger())
+                    .incrementAndGet();
+            List<LocalDateTime> day = table.computeIfAbsent(
+                    new BookingCalendar.DayKey(doctorId, time.toLocalDate()), k -> new ArrayList<>());
+            synchronized (day) {
+                day.add(time);
+            }
+            appointment.setId(nextId.incrementAndGet());
+            return appointment;
+        });
+        when(repository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    LocalDateTime start = invocation.getArgument(1);
+                    List<LocalDateTime> day = table.get(new BookingCalendar.DayKey(invocation.getArgument(0), start.toLocalDate()));
+                    if (day == null) {
+                        return List.of();
+                    }
+                    synchronized (day) {
+                        return new ArrayList<>(day);
+                    }
+                });
+
+        BookingCalendar calendar = new BookingCalendar(repository, 100_000, Duration.ofHours(1));
+        // Deliver events after commit, as @TransactionalEventListener does
+        ApplicationEventPublisher publisher = event -> TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        calendar.onAppointmentChanged((AppointmentChangedEvent) event);
+                    }
+                });
+
+        bookingLocks = new BookingLocks();
+        AvailabilityRegistry availabilityRegistry = new AvailabilityRegistry(null, 10_000, Duration.ofMinutes(10));
+        appointmentService = new AppointmentService(repository, availabilityRegistry, calendar,
+                bookingLocks, new SlotHolds(Duration.ofMinutes(2), Duration.ofSeconds(1)),
+                new SlowCommitTransactionManager(), publisher, new DaySheetCache(repository, 10_000, Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void hotDoctorSlotsAreBookedExactlyOnce() throws Exception {
+        Result result = run(thread -> {
+            int hour = 9 + ThreadLocalRandom.current().nextInt(HOT_SLOTS);
+            int minute = ThreadLocalRandom.current().nextBoolean() ? 0 : 30; // 09:30 competes for the 09:00 slot
+            return appointment(HOT_DOCTOR_ID, DAY.atTime(hour, minute));
+        });
+
+        assertEquals(HOT_SLOTS, result.booked, "every hot slot is booked once");
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - HOT_SLOTS, result.conflicts);
+        assertNoSlotBookedTwice();
+    }
+
+    @Test
+    void coldDoctorsDoNotBlockEachOther() throws Exception {
+        Result result = run(coldAttempts(1_000L));
+
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD, result.booked);
+        assertEquals(0, result.conflicts);
+        assertNoSlotBookedTwice();
+    }
+
+    // Each cold doctor gets a distinct slot per attempt: no conflicts, only lock traffic on distinct keys
+    private static AttemptFactory coldAttempts(long firstDoctorId) {
+        AtomicInteger sequence = new AtomicInteger();
+        return thread -> {
+            int n = sequence.getAndIncrement();
+            long doctorId = firstDoctorId + n % COLD_DOCTORS;
+            LocalDateTime time = DAY.plusDays(n / (COLD_DOCTORS * 24)).atTime((n / COLD_DOCTORS) % 24, 0);
+            return appointment(doctorId, time);
+        };
+    }
+
+    private interface AttemptFactory {
+        Appointment next(int thread);
+    }
+
+    private record Result(int booked, int conflicts) {
+    }
+
+    private Result run(AttemptFactory attempts) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        int code = appointmentService.bookAppointment(attempts.next(thread), PATIENT_ID);
+                        if (code == 1) {
+                            booked.incrementAndGet();
+                        } else if (code == -1) {
+                            conflicts.incrementAndGet();
+                        } else {
+                            throw new AssertionError("Unexpected booking result " + code);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(0, bookingLocks.activeKeys(), "idle locks are released");
+            return new Result(booked.get(), conflicts.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void assertNoSlotBookedTwice() {
+        savedPerSlot.forEach((slot, count) -> assertTrue(count.get() == 1, "slot " + slot + " booked " + count + " times"));
+    }
+
+    private static Appointment appointment(long doctorId, LocalDateTime time) {
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+        Patient patient = new Patient();
+        patient.setId(PATIENT_ID);
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        appointment.setPatient(patient);
+        appointment.setAppointmentTime(time);
+        return appointment;
+    }
+
+    // Transaction manager with synchronization support and a short commit delay, standing in for the JPA one
+    private static final class SlowCommitTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            LockSupport.parkNanos(20_000);
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.project.back_end.models.Doctor;
+import com.project.back_end.repo.DoctorRepository;
+
+/**
+ * The V3 migration copies the legacy availability strings of doctors without rows, then drops
+ * the legacy table so its foreign key no longer blocks deleting those doctors.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class AvailabilityBackfillTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @AfterEach
+    void tearDown() {
+        doctorRepository.deleteAll();
+    }
+
+    @Test
+    void copiesLegacyRangesOnceAndDropsTheLegacyTable() throws Exception {
+        Doctor legacy = doctorRepository.save(doctor("legacy.doctor@example.com", List.of()));
+        Doctor edited = doctorRepository.save(doctor("edited.doctor@example.com", List.of("MON 10:00-11:00")));
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE " + AvailabilityBackfill.LEGACY_TABLE
+                + " (doctor_id BIGINT NOT NULL REFERENCES doctor (id), available_times VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO " + AvailabilityBackfill.LEGACY_TABLE + " VALUES (?, ?), (?, ?)",
+                legacy.getId(), "TUE 09:00-12:00", edited.getId(), "08:00-20:00");
+
+        try (Connection connection = dataSource.getConnection()) {
+            new AvailabilityBackfill().migrate(context(connection));
+        }
+
+        assertEquals(List.of("TUE 09:00-12:00"),
+                doctorRepository.findWithAvailabilityById(legacy.getId()).orElseThrow().getAvailableTimes());
+        assertEquals(List.of("MON 10:00-11:00"),
+                doctorRepository.findWithAvailabilityById(edited.getId()).orElseThrow().getAvailableTimes(),
+                "availability edited since is kept");
+        assertTrue(jdbcTemplate.queryForList("SELECT table_name FROM information_schema.tables WHERE table_name = ?",
+                String.class, AvailabilityBackfill.LEGACY_TABLE.toUpperCase()).isEmpty(), "legacy table dropped");
+
+        doctorRepository.deleteById(legacy.getId());
+        assertTrue(doctorRepository.findById(legacy.getId()).isEmpty(), "legacy doctor can be deleted");
+    }
+
+    private static Doctor doctor(String email, List<String> availableTimes) {
+        Doctor doctor = new Doctor();
+        doctor.setName("Legacy Doctor");
+        doctor.setSpecialty("Cardiology");
+        doctor.setEmail(email);
+        doctor.setPassword("secret1");
+        doctor.setPhone("5550000000");
+        doctor.setAvailableTimes(availableTimes);
+        return doctor;
+    }
+
+    private static Context context(Connection connection) {
+        return new Context() {
+            @Override
+            public Configuration getConfiguration() {
+                return null;
+            }
+
+            @Override
+            public Connection getConnection() {
+                return connection;
+            }
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.project.back_end.repo.AppointmentRepository;
+
+/**
+ * A bulk load that races with a booking must not cache the mask it read before the booking.
+ */
+class BookingCalendarTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 7);
+    private static final Long DOCTOR_ID = 1L;
+
+    private final List<LocalDateTime> table = new ArrayList<>();
+    private AppointmentRepository repository;
+    private BookingCalendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AppointmentRepository.class);
+        calendar = new BookingCalendar(repository, 1_000, Duration.ofMinutes(5));
+        when(repository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(any(), any(), any()))
+                .thenAnswer(invocation -> List.copyOf(table));
+    }
+
+    @Test
+    void bookingCommittedDuringABulkLoadIsNotLost() {
+        LocalDateTime booked = DAY.atTime(10, 0);
+        // The query reads the table before the booking, which commits and is applied before the masks are installed
+        when(repository.findAppointmentTimesByDoctorIdAndAppointmentTimeBetween(any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    List<LocalDateTime> snapshot = List.copyOf(table);
+                    table.add(booked);
+                    calendar.markBooked(DOCTOR_ID, booked);
+                    return snapshot;
+                })
+                .thenAnswer(invocation -> List.copyOf(table));
+
+        calendar.bookedMasks(DOCTOR_ID, DAY, DAY.plusDays(1));
+
+        assertEquals(BookingCalendar.slotBit(booked), calendar.bookedMask(DOCTOR_ID, DAY));
+    }
+
+    @Test
+    void bookingAppliedAfterABulkLoadUpdatesTheInstalledDay() {
+        calendar.bookedMasks(DOCTOR_ID, DAY, DAY);
+        LocalDateTime booked = DAY.atTime(14, 30);
+        table.add(booked);
+        calendar.markBooked(DOCTOR_ID, booked);
+
+        assertEquals(BookingCalendar.slotBit(booked), calendar.bookedMasks(DOCTOR_ID, DAY, DAY)[0]);
+    }
+}
@@ -0,0 +1,108 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Holds hide their slot from other patients until released, consumed by their own patient's
+ * booking or expired. The wheel's tick is an hour so it only turns when a test advances it.
+ */
+class SlotHoldsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 7);
+    private static final Long DOCTOR_ID = 1L;
+    private static final Long PATIENT_ID = 10L;
+    private static final Long OTHER_PATIENT_ID = 20L;
+    private static final Duration TICK = Duration.ofHours(1);
+
+    private SlotHolds holds = new SlotHolds(Duration.ofMinutes(2), TICK);
+
+    @AfterEach
+    void tearDown() {
+        holds.shutdown();
+    }
+
+    @Test
+    void holdHidesTheSlotFromOtherPatientsOnly() {
+        SlotHolds.Hold hold = holds.place(PATIENT_ID, DOCTOR_ID, DAY.atTime(10, 30));
+
+        assertNotNull(hold);
+        assertEquals(DAY.atTime(10, 0), hold.slotStart());
+        assertTrue(holds.isHeldByOther(DOCTOR_ID, DAY.atTime(10, 0), OTHER_PATIENT_ID));
+        assertFalse(holds.isHeldByOther(DOCTOR_ID, DAY.atTime(10, 0), PATIENT_ID));
+        assertNull(holds.place(OTHER_PATIENT_ID, DOCTOR_ID, DAY.atTime(10, 0)), "the slot is already held");
+    }
+
+    @Test
+    void heldMaskHasOneBitPerHeldHourOfTheDoctorAndDay() {
+        holds.place(PATIENT_ID, DOCTOR_ID, DAY.atTime(9, 0));
+        holds.place(OTHER_PATIENT_ID, DOCTOR_ID, DAY.atTime(14, 0));
+        holds.place(30L, 2L, DAY.atTime(11, 0));
+
+        assertEquals(1 << 9 | 1 << 14, holds.heldMask(DOCTOR_ID, DAY));
+        assertEquals(1 << 11, holds.heldMask(2L, DAY));
+        assertEquals(0, holds.heldMask(DOCTOR_ID, DAY.plusDays(1)));
+    }
+
+    @Test
+    void placingAnotherHoldReleasesThePatientsPreviousOne() {
+        holds.place(PATIENT_ID, DOCTOR_ID, DAY.atTime(9, 0));
+        holds.place(PATIENT_ID, DOCTOR_ID, DAY.atTime(11, 0));
+
+        assertEquals(1 << 11, holds.heldMask(DOCTOR_ID, DAY));
+        assertEquals(1, holds.size());
+    }
+
+    @Test
+    void onlyTheHoldersPatientCanReleaseIt() {
+        SlotHolds.Hold hold = holds.place(PATIENT_ID, DOCTOR_ID, DAY.atTime(9, 0));
+
+        assertFalse(holds.release(hold.holdId(), OTHER_PATIENT_ID));
+        assertEquals(1 << 9, holds.heldMask(DOCTOR_ID, DAY));
+
+        assertTrue(holds.release(hold.holdId(), PATIENT_ID));
+        assertEquals(0, holds.heldMask(DOCTOR_ID, DAY));
+        assertEquals(0, holds.size());
+        assertFalse(holds.release(hold.holdId(), PATIENT_ID), "already released");
+    }
+
+    @Test
+    void bookingConsumesOnlyTheBookingPatientsHold() {
+        holds.place(PATIENT_ID, DOCTOR_ID, DAY.atTime(9, 0));
+
+        holds.consume(DOCTOR_ID, DAY.atTime(9, 0), OTHER_PATIENT_ID);
+        assertEquals(1 << 9, holds.heldMask(DOCTOR_ID, DAY));
+
+        long version = holds.version();
+        holds.consume(DOCTOR_ID, DAY.atTime(9, 30), PATIENT_ID);
+        assertEquals(0, holds.heldMask(DOCTOR_ID, DAY));
+        assertEquals(0, holds.size());
+        assertTrue(holds.version() > version);
+    }
+
+    @Test
+    void expiredHoldsAreIgnoredAndThenRemovedByTheWheel() {
+        holds.shutdown();
+        holds = new SlotHolds(Duration.ZERO, TICK);
+        SlotHolds.Hold hold = holds.place(PATIENT_ID, DOCTOR_ID, DAY.atTime(9, 0));
+
+        // Expired as soon as placed: invisible on read, still indexed until the wheel reaches it
+        assertEquals(0, holds.heldMask(DOCTOR_ID, DAY));
+        assertFalse(holds.isHeldByOther(DOCTOR_ID, DAY.atTime(9, 0), OTHER_PATIENT_ID));
+        assertNotNull(holds.place(OTHER_PATIENT_ID, DOCTOR_ID, DAY.atTime(9, 0)), "an expired hold frees its slot");
+        assertFalse(holds.release(hold.holdId(), PATIENT_ID), "an expired hold is not released");
+
+        holds.advance(System.currentTimeMillis() + 2 * TICK.toMillis());
+        assertEquals(0, holds.size());
+    }
+}
@@ -0,0 +1,56 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.project.back_end.repo.TokenRevocationRepository;
+
+/**
+ * A revoked principal's tokens stay rejected by a freshly started {@link TokenService}, which
+ * only knows the cutoffs persisted in the database.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class TokenRevocationTest {
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private TokenRevocationRepository revocationRepository;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @AfterEach
+    void tearDown() {
+        revocationRepository.deleteAll();
+    }
+
+    @Test
+    void revocationSurvivesARestart() throws InterruptedException {
+        String token = tokenService.generateToken(41L, "revoked.doctor@example.com", "doctor");
+        String other = tokenService.generateToken(42L, "other.doctor@example.com", "doctor");
+        Thread.sleep(1_100); // cutoffs have a one-second resolution: only tokens issued before it are revoked
+
+        tokenService.revokeTokens("doctor", 41L);
+        assertNull(tokenService.authenticate(token, "doctor"));
+
+        TokenService restarted = new TokenService(principalCache, revocationRepository, secret, 0, 10_000,
+                Duration.ofMinutes(1));
+        assertNull(restarted.authenticate(token, "doctor"), "revoked token accepted after restart");
+        assertNotNull(restarted.authenticate(other, "doctor"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.project.back_end.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.project.back_end.DTO.TokenPrincipal;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Compares the per-request cost of verifying a JWT the old way (fresh key and
+ * parser on every call), with the reused parser, and through the verified-token cache.
+ * Run with the GC profiler to see bytes allocated per verification ({@code gc.alloc.rate.norm}):
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.project.back_end.services.TokenVerificationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenVerificationBenchmark {
+
+    private static final String SECRET = "$!@#$^%$$$%####$DDCPN0234FCFDPD8670M";
+
+    private TokenService tokenService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenService = new TokenService(null, null, SECRET, 0, 10_000, Duration.ofMinutes(1));
+        token = tokenService.generateToken(42L, "patient@example.com", "patient");
+    }
+
+    @Benchmark
+    public String rebuildKeyAndParser() {
+        Claims claims = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        return claims.getSubject();
+    }
+
+    @Benchmark
+    public TokenPrincipal reusedParser() {
+        return tokenService.parsePrincipal(token);
+    }
+
+    @Benchmark
+    public TokenPrincipal verifiedTokenCache() {
+        return tokenService.extractPrincipal(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TokenVerificationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,64 @@
+package com.project.back_end.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The index answers what {@code LOWER(name) LIKE '%q%'} would: case folded, short needles
+ * matched by scanning, longer ones pruned by intersecting postings and then confirmed.
+ */
+class TrigramIndexTest {
+
+    private final TrigramIndex index = new TrigramIndex(Arrays.asList(
+            "Dr. Anna Smith", "John Smithers", "Ann Brown", null, "Nasmith"));
+
+    @Test
+    void needlesShorterThanAGramAreCheckedAgainstEveryText() {
+        assertEquals(bits(0, 2), index.matching("an"));
+        assertEquals(bits(0, 1, 2, 4), index.matching("n"));
+        assertEquals(bits(0, 1, 2, 3, 4), index.matching(""), "the empty needle matches every text, null included");
+    }
+
+    @Test
+    void matchingIgnoresCase() {
+        assertEquals(bits(0, 1, 4), index.matching("SMITH"));
+        assertEquals(bits(2), index.matching("aNn bRoWn"));
+    }
+
+    @Test
+    void postingsAreIntersectedAndConfirmedAsSubstrings() {
+        // The grams of "smith" are in texts 0, 1 and 4, but only 1 has "the"
+        assertEquals(bits(1), index.matching("smithe"));
+        // Every gram of "maryan" is in "Mary Ryan", yet not as one substring
+        assertEquals(bits(1), new TrigramIndex(List.of("Mary Ryan", "Maryan")).matching("maryan"));
+        // A gram no text has empties the result
+        assertEquals(new BitSet(), index.matching("xyz"));
+    }
+
+    @Test
+    void resultsAreCopiesTheCallerMayModify() {
+        BitSet first = index.matching("smith");
+        first.clear();
+        assertEquals(bits(0, 1, 4), index.matching("smith"));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void trigramsSlideOneCharacterAtATime() {
+        assertEquals(List.of("smi", "mit", "ith"), TrigramIndex.trigrams("smith"));
+        assertEquals(List.of(), TrigramIndex.trigrams("ab"));
+    }
+
+    private static BitSet bits(int... positions) {
+        BitSet bits = new BitSet();
+        for (int position : positions) {
+            bits.set(position);
+        }
+        return bits;
+    }
+}